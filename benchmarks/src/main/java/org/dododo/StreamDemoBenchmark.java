@@ -0,0 +1,62 @@
+package org.dododo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StreamDemo 的 filter -> map -> forEach 流水线（{@link StreamDemo#pushAds}），对比等价的 for 循环
+ *
+ * <p>商品价格在 [0, 10000) 均匀分布，约一半通过 IS_EXPENSIVE；size=4 接近 demo 的数据量，主要看 Stream 的固定开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamDemoBenchmark {
+
+    @Param({"4", "1000", "100000"})
+    int size;
+
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new Product("product-" + i, random.nextInt(10000)));
+        }
+    }
+
+    @Benchmark
+    public void stream(Blackhole bh) {
+        StreamDemo.pushAds(products, bh::consume);
+    }
+
+    @Benchmark
+    public void loop(Blackhole bh) {
+        for (Product product : products) {
+            if (StreamDemo.IS_EXPENSIVE.test(product)) {
+                bh.consume(StreamDemo.MAKE_AD.apply(product));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.dododo.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比两次 JMH JSON 结果（-rf json），找出性能回退
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar org.dododo.bench.CompareResults baseline.json current.json [阈值百分比，默认 10]
+ * </pre>
+ * 按 benchmark + 参数 + 线程数匹配；thrpt 下降、avgt / sample / ss 上升超过阈值，并且差值大于两次结果的误差之和，才算回退。
+ * 有回退时退出码为 1，可以直接放进 CI。
+ */
+public class CompareResults {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: CompareResults <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double thresholdPercent = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", score(entry.getValue()), "new");
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            double oldScore = score(before);
+            double newScore = score(after);
+            double changePercent = oldScore == 0 ? 0 : (newScore - oldScore) / oldScore * 100;
+            // thrpt 越大越好，其他模式（耗时）越小越好
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            double worsePercent = higherIsBetter ? -changePercent : changePercent;
+            double noise = error(before) + error(after);
+            boolean regressed = worsePercent > thresholdPercent && Math.abs(newScore - oldScore) > noise;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), oldScore, newScore, changePercent,
+                    regressed ? "  REGRESSION" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-90s %14.3f %14s %9s%n", key, score(baseline.get(key)), "-", "missing");
+            }
+        }
+
+        System.out.printf("%n%d regression(s) over %.1f%%%n", regressions, thresholdPercent);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            results.put(key(result), result);
+        }
+        return results;
+    }
+
+    private static String key(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+        // 参数按名字排序，保证两次结果的 key 一致
+        Map<String, String> params = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            params.put(field.getKey(), field.getValue().asText());
+        }
+        params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+        key.append(" t=").append(result.path("threads").asInt());
+        return key.toString();
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble();
+    }
+
+    private static double error(JsonNode result) {
+        double error = result.path("primaryMetric").path("scoreError").asDouble();
+        // 只跑一次迭代时 JMH 输出 NaN
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
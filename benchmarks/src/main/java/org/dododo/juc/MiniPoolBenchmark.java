@@ -0,0 +1,195 @@
+package org.dododo.juc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dododo.juc.StandardLockDemo.MiniPool;
+import org.dododo.juc.StandardLockDemo.MockConnection;
+import org.dododo.pool.ObjectPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接池借还吞吐：StandardLockDemo.MiniPool 的 Lock/Condition 与 synchronized/notifyAll 两种实现，
+ * Semaphore + 无锁队列的变体，以及由 MiniPool 演化来的 {@link ObjectPool}
+ *
+ * <p>JMH 不能把线程数作为 @Param，所以每种实现按 1 / 4 / 16 线程各写一个方法；
+ * 池大小默认 4，16 线程时每次借用平均要等 3 个持有者归还。holdWork 是持有连接期间消耗的 CPU（Blackhole token 数）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MiniPoolBenchmark {
+
+    private static final String THREAD_NAME = "bench";
+
+    @Param({"4"})
+    int poolSize;
+
+    @Param({"100"})
+    int holdWork;
+
+    private MiniPool lockPool;
+    private MiniPool synchronizedPool;
+    private SemaphorePool semaphorePool;
+    private ObjectPool<MockConnection> objectPool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lockPool = new MiniPool(poolSize);
+        synchronizedPool = new MiniPool(poolSize);
+        semaphorePool = new SemaphorePool(poolSize);
+        objectPool = new ObjectPool<>("bench", () -> new MockConnection("Conn"), poolSize, poolSize,
+                Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1),
+                new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        objectPool.close();
+    }
+
+    private MockConnection lockCondition() throws InterruptedException {
+        MockConnection conn = lockPool.borrowConnection(THREAD_NAME);
+        Blackhole.consumeCPU(holdWork);
+        lockPool.returnConnection(conn, THREAD_NAME);
+        return conn;
+    }
+
+    private MockConnection synchronizedNotifyAll() {
+        MockConnection conn = synchronizedPool.borrowConnectionWithSynchronized(THREAD_NAME);
+        Blackhole.consumeCPU(holdWork);
+        synchronizedPool.returnConnectionWithSynchronized(conn);
+        return conn;
+    }
+
+    private MockConnection semaphore() throws InterruptedException {
+        MockConnection conn = semaphorePool.borrow();
+        Blackhole.consumeCPU(holdWork);
+        semaphorePool.release(conn);
+        return conn;
+    }
+
+    private MockConnection objectPool() throws InterruptedException {
+        try (ObjectPool.Lease<MockConnection> lease = objectPool.borrow()) {
+            Blackhole.consumeCPU(holdWork);
+            return lease.get();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public MockConnection lockCondition_t01() throws InterruptedException {
+        return lockCondition();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public MockConnection lockCondition_t04() throws InterruptedException {
+        return lockCondition();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public MockConnection lockCondition_t16() throws InterruptedException {
+        return lockCondition();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public MockConnection synchronized_t01() {
+        return synchronizedNotifyAll();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public MockConnection synchronized_t04() {
+        return synchronizedNotifyAll();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public MockConnection synchronized_t16() {
+        return synchronizedNotifyAll();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public MockConnection semaphore_t01() throws InterruptedException {
+        return semaphore();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public MockConnection semaphore_t04() throws InterruptedException {
+        return semaphore();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public MockConnection semaphore_t16() throws InterruptedException {
+        return semaphore();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public MockConnection objectPool_t01() throws InterruptedException {
+        return objectPool();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public MockConnection objectPool_t04() throws InterruptedException {
+        return objectPool();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public MockConnection objectPool_t16() throws InterruptedException {
+        return objectPool();
+    }
+
+    /**
+     * Semaphore 控制可借数量，空闲连接放在无锁队列里：拿到许可后 poll 一定非空
+     */
+    static final class SemaphorePool {
+        private final Semaphore permits;
+        private final ConcurrentLinkedQueue<MockConnection> idle = new ConcurrentLinkedQueue<>();
+
+        SemaphorePool(int size) {
+            this.permits = new Semaphore(size);
+            for (int i = 0; i < size; i++) {
+                idle.add(new MockConnection("Conn-" + i));
+            }
+        }
+
+        MockConnection borrow() throws InterruptedException {
+            permits.acquire();
+            return idle.poll();
+        }
+
+        void release(MockConnection conn) {
+            idle.offer(conn);
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.dododo.juc;
+
+import org.dododo.juc.JUCAPIDemo.ThreadPoolDemo.SumTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 求和 [1, n]：JUCAPIDemo.ThreadPoolDemo.SumTask 在不同拆分阈值下，对比单线程循环和 LongStream.parallel()
+ *
+ * <p>threshold 放在单独的 {@link Split} 状态里，只有 forkJoin 按阈值展开，sequential / parallelStream 每个 n 只跑一次。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SumTaskBenchmark {
+
+    @Param({"10000000"})
+    long n;
+
+    @State(Scope.Benchmark)
+    public static class Split {
+        @Param({"1000", "10000", "100000", "1000000"})
+        long threshold;
+    }
+
+    @Benchmark
+    public long forkJoin(Split split) {
+        return ForkJoinPool.commonPool().invoke(new SumTask(1, n, split.threshold));
+    }
+
+    @Benchmark
+    public long sequential() {
+        long sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += i;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long parallelStream() {
+        return LongStream.rangeClosed(1, n).parallel().sum();
+    }
+}
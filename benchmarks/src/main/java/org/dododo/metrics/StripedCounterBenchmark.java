@@ -0,0 +1,92 @@
+package org.dododo.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 高竞争下直接写 Micrometer Counter 与写 {@link StripedCounter}（经 {@link MetricsAggregator#stripe} 包装）的吞吐对比
+ *
+ * <p>每次操作是 increment() + increment(2.5)，与业务代码里计数和累加金额的写法一致；
+ * JMH 不能把线程数作为 @Param，所以两条路径按 1 / 8 / 32 线程各写一个方法。
+ * 定时 flush 不在测量范围内，只在每轮结束时 flush 一次，防止条带里的增量无限累积。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StripedCounterBenchmark {
+
+    private MetricsAggregator aggregator;
+    private Counter direct;
+    private Counter striped;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        aggregator = new MetricsAggregator();
+        direct = Counter.builder("bench.direct").register(new SimpleMeterRegistry());
+        striped = aggregator.stripe(Counter.builder("bench.striped").register(new SimpleMeterRegistry()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() {
+        aggregator.flush();
+    }
+
+    private static void record(Counter counter) {
+        counter.increment();
+        counter.increment(2.5);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void direct_t01() {
+        record(direct);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void direct_t08() {
+        record(direct);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void direct_t32() {
+        record(direct);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void striped_t01() {
+        record(striped);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void striped_t08() {
+        record(striped);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void striped_t32() {
+        record(striped);
+    }
+}
@@ -0,0 +1,139 @@
+package org.dododo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dododo.concurrent.BoundedWorkQueue;
+import org.dododo.config.BusinessProperties;
+import org.dododo.config.LoggingProperties;
+import org.dododo.config.MetricsProperties;
+import org.dododo.id.SnowflakeIdGenerator;
+import org.dododo.logging.LogSamplers;
+import org.dododo.metrics.LatencyWindows;
+import org.dododo.metrics.MetricsAggregator;
+import org.dododo.metrics.SlidingWindowHistogram;
+import org.dododo.pool.ObjectPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BusinessMetricsService 热路径上的指标记录开销（不含模拟业务的 sleep），默认 8 线程竞争，-t 1 可看无竞争的基线
+ *
+ * <ul>
+ *   <li>customEvent / customEventHighCardinality：CounterFamily 查找 + 预聚合 Counter，后者的标签值超过基数上限，走 other</li>
+ *   <li>businessMetric：DynamicCounterFamilies 两级查找</li>
+ *   <li>userLogin：SessionTracker（会话表 + HyperLogLog）+ 预聚合 Counter</li>
+ *   <li>timed：订单 / 支付用的 Timer + 进程内滑动窗口双写</li>
+ *   <li>registryCounter：直接写 Micrometer Counter，作为预聚合的参照</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class BusinessMetricsServiceBenchmark {
+
+    private static final String[] EVENT_TYPES = new String[1000];
+    private static final String[] USER_IDS = new String[10000];
+
+    static {
+        for (int i = 0; i < EVENT_TYPES.length; i++) {
+            EVENT_TYPES[i] = "event-" + i;
+        }
+        for (int i = 0; i < USER_IDS.length; i++) {
+            USER_IDS[i] = "user-" + i;
+        }
+    }
+
+    private MetricsAggregator aggregator;
+    private BoundedWorkQueue workQueue;
+    private ObjectPool<PaymentGatewayConnection> gatewayPool;
+    private BusinessMetricsService service;
+    private Timer timer;
+    private SlidingWindowHistogram window;
+    private Counter registryCounter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MetricsProperties metricsProperties = new MetricsProperties();
+        BusinessProperties businessProperties = new BusinessProperties();
+        LatencyWindows latencyWindows = new LatencyWindows(metricsProperties);
+        aggregator = new MetricsAggregator();
+        workQueue = new BoundedWorkQueue("bench", 1024, 1, BoundedWorkQueue.Backpressure.DROP,
+                Duration.ZERO, registry);
+        // 这里不测支付，池里不预建连接
+        gatewayPool = new ObjectPool<>("bench", PaymentGatewayConnection::connect, 0, 1, Duration.ofSeconds(1),
+                Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1), registry);
+        service = new BusinessMetricsService(registry, metricsProperties, aggregator,
+                new SnowflakeIdGenerator(0, 10), workQueue, businessProperties, latencyWindows,
+                new SessionTracker(businessProperties), new LogSamplers(new LoggingProperties(), registry),
+                gatewayPool);
+
+        // 与 service 内部注册的是同一个 Timer / 窗口
+        timer = registry.timer("business.order.process.duration", "operation", "process");
+        window = latencyWindows.window("business.order.process.duration");
+        registryCounter = Counter.builder("bench.registry.counter").register(registry);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        aggregator.flush();
+        workQueue.shutdown();
+        gatewayPool.close();
+    }
+
+    @Benchmark
+    public void customEvent() {
+        service.recordCustomEvent("click", "success");
+    }
+
+    @Benchmark
+    public void customEventHighCardinality() {
+        service.recordCustomEvent(EVENT_TYPES[ThreadLocalRandom.current().nextInt(EVENT_TYPES.length)], "success");
+    }
+
+    @Benchmark
+    public void businessMetric() {
+        service.recordBusinessMetric("revenue", "retail", 12.5);
+    }
+
+    @Benchmark
+    public void userLogin() {
+        service.userLogin(USER_IDS[ThreadLocalRandom.current().nextInt(USER_IDS.length)]);
+    }
+
+    /**
+     * 与 BusinessMetricsService 中订单 / 支付的记录方式相同：一次耗时同时写入 Timer 和滑动窗口
+     */
+    @Benchmark
+    public void timed() {
+        long elapsed = ThreadLocalRandom.current().nextLong(50_000_000L, 150_000_000L);
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        window.recordNanos(elapsed);
+    }
+
+    @Benchmark
+    public void registryCounter() {
+        registryCounter.increment();
+    }
+}
@@ -0,0 +1,73 @@
+#!/bin/bash
+
+# Dashboard 压测脚本：对比 platform / virtual 两种舱壁执行器模式
+# 依赖: hey (https://github.com/rakyll/hey)
+# 使用方法: ./bench-dashboard.sh [并发数] [请求总数] [接口]
+#   ./bench-dashboard.sh 1000 10000 synchronizers
+#
+# 注意:
+#   - 默认压测 /synchronizers：不经过 section 缓存，每个请求都会提交到三个舱壁执行器。
+#     /completableFuture 按 userId 缓存，hey 每次请求的 URL 相同，除第一次外都是缓存命中，测不到执行器
+#   - 应用的 AIMD 限流（app.dashboard.limiter.*，initial-limit=20）会把 1k 并发的大部分请求直接返回 503，
+#     压测执行器时应把 limit 固定到足够大，例如启动参数:
+#       --app.dashboard.limiter.min-limit=5000 --app.dashboard.limiter.initial-limit=5000 --app.dashboard.limiter.max-limit=5000
+#   - 503 单独统计，延迟分位数只统计 200 响应，避免被快速失败的 503 拉低
+
+CONCURRENCY=${1:-1000}
+REQUESTS=${2:-10000}
+ENDPOINT=${3:-synchronizers}
+BASE_URL=${BASE_URL:-"http://localhost:8080"}
+URL="$BASE_URL/api/dashboard/$ENDPOINT"
+
+if ! command -v hey >/dev/null 2>&1; then
+    echo "❌ 错误: 未找到 hey，请先安装: go install github.com/rakyll/hey@latest"
+    exit 1
+fi
+
+if [ "$ENDPOINT" = "completableFuture" ]; then
+    echo "⚠️  /completableFuture 的 userId 固定，请求基本都是缓存命中，结果不能反映执行器模式的差异"
+fi
+
+echo "🚀 压测 $URL  (并发: $CONCURRENCY, 请求数: $REQUESTS)"
+
+# 预热，避免 JIT / 线程池冷启动影响结果
+hey -n 200 -c 50 "$URL" >/dev/null
+
+# CSV 每行一个完成的响应: response-time,DNS+dialup,DNS,Request-write,Response-delay,Response-read,status-code,offset
+# 连接错误 / 客户端超时不会出现在 CSV 中，按 请求总数 - 行数 计算
+CSV=$(mktemp)
+trap 'rm -f "$CSV"' EXIT
+hey -n "$REQUESTS" -c "$CONCURRENCY" -t 30 -o csv "$URL" | tail -n +2 > "$CSV"
+
+awk -F, -v total="$REQUESTS" '
+    {
+        status[$7]++
+        end = $8 + $1
+        if (end > duration) duration = end
+        if ($7 == 200) ok++
+    }
+    END {
+        if (duration == 0) duration = 1
+        printf "总耗时:        %.2f s\n", duration
+        printf "Requests/sec:  %.1f (所有响应)\n", NR / duration
+        printf "Goodput:       %.1f req/s (仅 200)\n", ok / duration
+        print "状态码分布:"
+        for (code in status) printf "  [%s] %d\n", code, status[code]
+        printf "  503 比例: %.1f%%\n", 100 * status[503] / total
+        printf "  连接错误 / 超时: %d\n", total - NR
+    }
+' "$CSV"
+
+# 只统计 200 响应的延迟
+awk -F, '$7 == 200 { print $1 }' "$CSV" | sort -g | awk '
+    function at(p,   i) { i = int(NR * p + 0.5); return lat[i < 1 ? 1 : i] }
+    { lat[NR] = $1 }
+    END {
+        if (NR == 0) { print "没有 200 响应，无法计算延迟"; exit }
+        print "200 响应延迟:"
+        printf "  P50: %.4f s\n", at(0.50)
+        printf "  P90: %.4f s\n", at(0.90)
+        printf "  P99: %.4f s\n", at(0.99)
+        printf "  Max: %.4f s\n", lat[NR]
+    }
+'
@@ -0,0 +1,33 @@
+#!/bin/bash
+
+# JMH 基准测试：构建 benchmarks 模块并运行，结果写成 JSON，可与上一次结果对比找回退
+# 使用方法: ./run-benchmarks.sh [JMH 参数...]
+#   ./run-benchmarks.sh                          # 全部基准
+#   ./run-benchmarks.sh MiniPoolBenchmark        # 只跑匹配的基准（正则）
+#   ./run-benchmarks.sh SumTask -p threshold=10000 -f 1
+# 环境变量:
+#   BASELINE=path/to/old.json  运行后与该结果对比，回退超过 THRESHOLD% 时退出码为 1
+#   THRESHOLD=10
+#   SKIP_BUILD=1               跳过 maven 构建
+
+set -e
+
+ROOT_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+BENCH_JAR="$ROOT_DIR/benchmarks/target/benchmarks.jar"
+RESULT_DIR="$ROOT_DIR/benchmarks/target/results"
+RESULT_FILE="$RESULT_DIR/jmh-$(date +%Y%m%d-%H%M%S).json"
+
+if [ -z "$SKIP_BUILD" ]; then
+    echo "🔨 构建主工程和 benchmarks 模块"
+    mvn -B -q -f "$ROOT_DIR/pom.xml" install -DskipTests
+    mvn -B -q -f "$ROOT_DIR/benchmarks/pom.xml" package
+fi
+
+mkdir -p "$RESULT_DIR"
+echo "🚀 运行基准测试，结果: $RESULT_FILE"
+java -jar "$BENCH_JAR" -rf json -rff "$RESULT_FILE" "$@"
+
+if [ -n "$BASELINE" ]; then
+    echo "📊 与 $BASELINE 对比"
+    java -cp "$BENCH_JAR" org.dododo.bench.CompareResults "$BASELINE" "$RESULT_FILE" "${THRESHOLD:-10}"
+fi
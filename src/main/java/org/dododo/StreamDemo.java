@@ -19,6 +19,22 @@ class Product {
 }
 
 public class StreamDemo {
+
+    // ==========================================
+    // 2. Predicate (断言): 非黑即白，用于筛选
+    // ==========================================
+    // 逻辑：价格是否大于 5000
+    static final Predicate<Product> IS_EXPENSIVE = product -> product.price > 5000;
+
+    // ==========================================
+    // 3. Function (函数): 有去有回，用于转换
+    // ==========================================
+    // 逻辑：输入 Product 对象，输出一个 String (打折后的广告语)
+    static final Function<Product, String> MAKE_AD = product -> {
+        double discountPrice = product.price * 0.9; // 打9折
+        return "【特惠】" + product.name + " 现价: " + discountPrice;
+    };
+
     public static void main(String[] args) {
 
         // ==========================================
@@ -34,21 +50,6 @@ public class StreamDemo {
             return list;
         };
 
-        // ==========================================
-        // 2. Predicate (断言): 非黑即白，用于筛选
-        // ==========================================
-        // 逻辑：价格是否大于 5000
-        Predicate<Product> isExpensive = product -> product.price > 5000;
-
-        // ==========================================
-        // 3. Function (函数): 有去有回，用于转换
-        // ==========================================
-        // 逻辑：输入 Product 对象，输出一个 String (打折后的广告语)
-        Function<Product, String> makeAd = product -> {
-            double discountPrice = product.price * 0.9; // 打9折
-            return "【特惠】" + product.name + " 现价: " + discountPrice;
-        };
-
         // ==========================================
         // 4. Consumer (消费者): 只吃不吐，用于最终操作
         // ==========================================
@@ -63,11 +64,16 @@ public class StreamDemo {
 
         List<Product> productList = productLoader.get(); // 1. 获取数据 (Supplier)
 
-        productList.stream()
-                .filter(isExpensive)  // 2. 筛选 (Predicate) -> 只有 iPhone 和 MacBook 留下来
-                .map(makeAd)          // 3. 转换 (Function)  -> 变成 String
-                .forEach(sendPushMsg);// 4. 消费 (Consumer)  -> 打印结果
+        pushAds(productList, sendPushMsg);
 
         System.out.println("--- 处理结束 ---");
     }
+
+    // 筛选 -> 转换 -> 消费，benchmarks 模块中的 StreamDemoBenchmark 直接测这个方法
+    static void pushAds(List<Product> productList, Consumer<String> sendPushMsg) {
+        productList.stream()
+                .filter(IS_EXPENSIVE) // 2. 筛选 (Predicate) -> 只有 iPhone 和 MacBook 留下来
+                .map(MAKE_AD)         // 3. 转换 (Function)  -> 变成 String
+                .forEach(sendPushMsg);// 4. 消费 (Consumer)  -> 打印结果
+    }
 }
\ No newline at end of file
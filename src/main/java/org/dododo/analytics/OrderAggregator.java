@@ -0,0 +1,311 @@
+package org.dododo.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link OrderDataset} 上的 fork/join 聚合：按状态的 count / sum / min / max，按用户的订单数和金额合计
+ *
+ * <p>拆分方式：区间一分为二，fork 右半边、当前线程直接 compute 左半边，最后 join 右半边再合并。
+ * 与"两边都 fork 再 join"相比，少一半任务入队，当前线程也不会空等。
+ *
+ * <p>自适应叶子大小：
+ * <ul>
+ *   <li>按状态汇总：每个工作线程约 {@value #LEAVES_PER_THREAD} 个叶子任务，足够让空闲线程窃取来均衡负载，
+ *       叶子又足够大，拆分 / 合并开销可以忽略；不小于 {@value #MIN_LEAF_SIZE} 条</li>
+ *   <li>按用户分组：每个叶子要分配并合并一组按用户编号索引的数组（12 字节 × 用户数），
+ *       叶子至少是用户数的 {@value #GROUPED_LEAF_FACTOR} 倍。这样合并开销不超过扫描本身的 1/{@value #GROUPED_LEAF_FACTOR}，
+ *       一次查询分配的分组数组合计也不超过每条记录约 3 字节，与用户数和核数无关。
+ *       代价是用户数接近记录数时叶子变少、并行度下降，极端情况下退化为单个叶子顺序扫描</li>
+ * </ul>
+ *
+ * 叶子里只有对基本类型数组的顺序扫描，吞吐主要受内存带宽限制：核数增加到内存带宽打满之前接近线性扩展。
+ */
+public class OrderAggregator {
+
+    static final int MIN_LEAF_SIZE = 1 << 13;
+    static final int LEAVES_PER_THREAD = 4;
+    static final int GROUPED_LEAF_FACTOR = 8;
+
+    private final ForkJoinPool pool;
+
+    public OrderAggregator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * 按状态汇总
+     */
+    public Summary summarize(OrderDataset dataset) {
+        int leafSize = leafSize(dataset.size(), pool.getParallelism());
+        Summary result = pool.invoke(new SummaryTask(dataset, 0, dataset.size(), leafSize));
+        result.leafSize = leafSize;
+        return result;
+    }
+
+    /**
+     * 按用户统计订单数和金额合计
+     *
+     * @param status 只统计该状态的订单，null 表示全部
+     */
+    public UserTotals totalsByUser(OrderDataset dataset, OrderStatus status) {
+        int leafSize = groupedLeafSize(dataset.size(), dataset.userCount(), pool.getParallelism());
+        int statusCode = status != null ? status.code() : -1;
+        UserTotalsTask task = new UserTotalsTask(dataset, statusCode, 0, dataset.size(), leafSize);
+        UserTotals result = pool.invoke(task);
+        result.leafSize = leafSize;
+        return result;
+    }
+
+    static int leafSize(int size, int parallelism) {
+        long leaves = (long) parallelism * LEAVES_PER_THREAD;
+        return (int) Math.max(MIN_LEAF_SIZE, (size + leaves - 1) / leaves);
+    }
+
+    static int groupedLeafSize(int size, int groups, int parallelism) {
+        // 叶子数 ≈ size / leaf，分组数组合计 ≈ 叶子数 × 12 × groups ≤ 12 × size / GROUPED_LEAF_FACTOR（二分拆分最多再翻一倍）
+        long leaf = Math.max(leafSize(size, parallelism), (long) GROUPED_LEAF_FACTOR * groups);
+        return (int) Math.min(Integer.MAX_VALUE, leaf);
+    }
+
+    private static final class SummaryTask extends RecursiveTask<Summary> {
+        private final OrderDataset dataset;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        SummaryTask(OrderDataset dataset, int from, int to, int leafSize) {
+            this.dataset = dataset;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (to - from <= leafSize) {
+                return scan();
+            }
+            int mid = (from + to) >>> 1;
+            SummaryTask right = new SummaryTask(dataset, mid, to, leafSize);
+            right.fork();
+            Summary left = new SummaryTask(dataset, from, mid, leafSize).compute();
+            left.merge(right.join());
+            return left;
+        }
+
+        private Summary scan() {
+            long[] counts = new long[OrderStatus.COUNT];
+            long[] sums = new long[OrderStatus.COUNT];
+            long[] mins = new long[OrderStatus.COUNT];
+            long[] maxs = new long[OrderStatus.COUNT];
+            Arrays.fill(mins, Long.MAX_VALUE);
+            Arrays.fill(maxs, Long.MIN_VALUE);
+            byte[] statuses = dataset.statuses;
+            long[] amounts = dataset.amounts;
+            for (int i = from; i < to; i++) {
+                int s = statuses[i];
+                long amount = amounts[i];
+                counts[s]++;
+                sums[s] += amount;
+                if (amount < mins[s]) {
+                    mins[s] = amount;
+                }
+                if (amount > maxs[s]) {
+                    maxs[s] = amount;
+                }
+            }
+            return new Summary(counts, sums, mins, maxs);
+        }
+    }
+
+    private static final class UserTotalsTask extends RecursiveTask<UserTotals> {
+        private final OrderDataset dataset;
+        private final int statusCode;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        UserTotalsTask(OrderDataset dataset, int statusCode, int from, int to, int leafSize) {
+            this.dataset = dataset;
+            this.statusCode = statusCode;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected UserTotals compute() {
+            if (to - from <= leafSize) {
+                return scan();
+            }
+            int mid = (from + to) >>> 1;
+            UserTotalsTask right = new UserTotalsTask(dataset, statusCode, mid, to, leafSize);
+            right.fork();
+            UserTotals left = new UserTotalsTask(dataset, statusCode, from, mid, leafSize).compute();
+            left.merge(right.join());
+            return left;
+        }
+
+        private UserTotals scan() {
+            int users = dataset.userCount();
+            int[] counts = new int[users];
+            long[] sums = new long[users];
+            int[] userIds = dataset.userIds;
+            byte[] statuses = dataset.statuses;
+            long[] amounts = dataset.amounts;
+            if (statusCode < 0) {
+                for (int i = from; i < to; i++) {
+                    int u = userIds[i];
+                    counts[u]++;
+                    sums[u] += amounts[i];
+                }
+            } else {
+                for (int i = from; i < to; i++) {
+                    if (statuses[i] == statusCode) {
+                        int u = userIds[i];
+                        counts[u]++;
+                        sums[u] += amounts[i];
+                    }
+                }
+            }
+            return new UserTotals(counts, sums);
+        }
+    }
+
+    /**
+     * 按状态汇总的结果（下标为状态码），金额单位为分；没有记录的状态 min / max 为 0。计算过程中也用作每个子任务的部分结果
+     */
+    public static final class Summary {
+        private final long[] counts;
+        private final long[] sums;
+        private final long[] mins;
+        private final long[] maxs;
+        private int leafSize;
+
+        private Summary(long[] counts, long[] sums, long[] mins, long[] maxs) {
+            this.counts = counts;
+            this.sums = sums;
+            this.mins = mins;
+            this.maxs = maxs;
+        }
+
+        private void merge(Summary other) {
+            for (int s = 0; s < OrderStatus.COUNT; s++) {
+                counts[s] += other.counts[s];
+                sums[s] += other.sums[s];
+                mins[s] = Math.min(mins[s], other.mins[s]);
+                maxs[s] = Math.max(maxs[s], other.maxs[s]);
+            }
+        }
+
+        public Stats total() {
+            long count = 0;
+            long sum = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int s = 0; s < OrderStatus.COUNT; s++) {
+                count += counts[s];
+                sum += sums[s];
+                min = Math.min(min, mins[s]);
+                max = Math.max(max, maxs[s]);
+            }
+            return new Stats(count, sum, count == 0 ? 0 : min, count == 0 ? 0 : max);
+        }
+
+        public Stats byStatus(OrderStatus status) {
+            int s = status.ordinal();
+            boolean empty = counts[s] == 0;
+            return new Stats(counts[s], sums[s], empty ? 0 : mins[s], empty ? 0 : maxs[s]);
+        }
+
+        public int getLeafSize() {
+            return leafSize;
+        }
+    }
+
+    public record Stats(long count, long sum, long min, long max) {
+    }
+
+    public record UserTotal(int userId, long count, long sum) {
+    }
+
+    /**
+     * 按用户分组的结果，金额单位为分；计算过程中也用作每个子任务的部分结果
+     */
+    public static final class UserTotals {
+        // 单个用户的订单数不会超过记录数（int），用 int[] 让每个叶子的分组数组小 1/4
+        private final int[] counts;
+        private final long[] sums;
+        private int leafSize;
+
+        private UserTotals(int[] counts, long[] sums) {
+            this.counts = counts;
+            this.sums = sums;
+        }
+
+        private void merge(UserTotals other) {
+            int[] otherCounts = other.counts;
+            long[] otherSums = other.sums;
+            for (int u = 0; u < counts.length; u++) {
+                counts[u] += otherCounts[u];
+                sums[u] += otherSums[u];
+            }
+        }
+
+        public UserTotal get(int userId) {
+            return new UserTotal(userId, counts[userId], sums[userId]);
+        }
+
+        /**
+         * 有订单的用户数
+         */
+        public int activeUsers() {
+            int active = 0;
+            for (int count : counts) {
+                if (count > 0) {
+                    active++;
+                }
+            }
+            return active;
+        }
+
+        /**
+         * 金额合计最高的 limit 个用户，从高到低
+         */
+        public List<UserTotal> top(int limit) {
+            // 小顶堆保留当前最大的 limit 个
+            PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, (a, b) -> Long.compare(sums[a], sums[b]));
+            for (int u = 0; u < sums.length; u++) {
+                if (counts[u] == 0) {
+                    continue;
+                }
+                if (heap.size() < limit) {
+                    heap.add(u);
+                } else if (limit > 0 && sums[u] > sums[heap.peek()]) {
+                    heap.poll();
+                    heap.add(u);
+                }
+            }
+            List<UserTotal> result = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                result.add(get(heap.poll()));
+            }
+            Collections.reverse(result);
+            return result;
+        }
+
+        public int getLeafSize() {
+            return leafSize;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.dododo.analytics;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 内存中的订单 / 支付数据，按列存成基本类型数组（一条记录 13 字节，没有对象头和装箱）
+ *
+ * <ul>
+ *   <li>userIds：用户编号 [0, userCount)</li>
+ *   <li>statuses：{@link OrderStatus#code()}</li>
+ *   <li>amounts：金额，单位分</li>
+ * </ul>
+ *
+ * 创建后不再修改，可以被多个聚合任务并发读取。
+ */
+public final class OrderDataset {
+
+    // 生成数据时每个任务负责的记录数，同时也是一个随机数种子对应的记录数，保证同一个 seed 生成的数据相同
+    private static final int GENERATE_CHUNK = 1 << 16;
+
+    final int[] userIds;
+    final byte[] statuses;
+    final long[] amounts;
+    private final int userCount;
+
+    public OrderDataset(int[] userIds, byte[] statuses, long[] amounts, int userCount) {
+        if (userIds.length != statuses.length || userIds.length != amounts.length) {
+            throw new IllegalArgumentException("column lengths differ");
+        }
+        if (userCount < 1) {
+            throw new IllegalArgumentException("userCount must be positive");
+        }
+        this.userIds = userIds;
+        this.statuses = statuses;
+        this.amounts = amounts;
+        this.userCount = userCount;
+    }
+
+    public int size() {
+        return amounts.length;
+    }
+
+    public int userCount() {
+        return userCount;
+    }
+
+    public long memoryBytes() {
+        return (long) size() * (Integer.BYTES + Byte.BYTES + Long.BYTES);
+    }
+
+    /**
+     * 在 pool 中并行生成模拟数据
+     * <ul>
+     *   <li>用户分布有偏斜：编号越小的用户订单越多（前 10% 的用户约占 30% 的订单）</li>
+     *   <li>状态：PAID 70%，FAILED 15%，CREATED 10%，REFUNDED 5%</li>
+     *   <li>金额：1 ~ 1000 元</li>
+     * </ul>
+     */
+    public static OrderDataset generate(int records, int users, long seed, ForkJoinPool pool) {
+        if (records < 0) {
+            throw new IllegalArgumentException("records must not be negative");
+        }
+        int[] userIds = new int[records];
+        byte[] statuses = new byte[records];
+        long[] amounts = new long[records];
+        int chunks = (records + GENERATE_CHUNK - 1) / GENERATE_CHUNK;
+        pool.invoke(new GenerateTask(userIds, statuses, amounts, users, seed, 0, chunks));
+        return new OrderDataset(userIds, statuses, amounts, users);
+    }
+
+    private static final class GenerateTask extends RecursiveAction {
+        private final int[] userIds;
+        private final byte[] statuses;
+        private final long[] amounts;
+        private final int users;
+        private final long seed;
+        private final int fromChunk;
+        private final int toChunk;
+
+        GenerateTask(int[] userIds, byte[] statuses, long[] amounts, int users, long seed, int fromChunk, int toChunk) {
+            this.userIds = userIds;
+            this.statuses = statuses;
+            this.amounts = amounts;
+            this.users = users;
+            this.seed = seed;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int mid = (fromChunk + toChunk) >>> 1;
+                GenerateTask right = new GenerateTask(userIds, statuses, amounts, users, seed, mid, toChunk);
+                right.fork();
+                new GenerateTask(userIds, statuses, amounts, users, seed, fromChunk, mid).compute();
+                right.join();
+                return;
+            }
+            SplittableRandom random = new SplittableRandom(seed * 31 + fromChunk);
+            int start = fromChunk * GENERATE_CHUNK;
+            int end = Math.min(amounts.length, start + GENERATE_CHUNK);
+            for (int i = start; i < end; i++) {
+                double u = random.nextDouble();
+                userIds[i] = (int) (u * u * users);
+                int p = random.nextInt(100);
+                OrderStatus status = p < 70 ? OrderStatus.PAID
+                        : p < 85 ? OrderStatus.FAILED
+                        : p < 95 ? OrderStatus.CREATED
+                        : OrderStatus.REFUNDED;
+                statuses[i] = status.code();
+                amounts[i] = 100 + random.nextInt(99_901);
+            }
+        }
+    }
+}
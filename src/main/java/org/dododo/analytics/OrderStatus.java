@@ -0,0 +1,29 @@
+package org.dododo.analytics;
+
+import java.util.Locale;
+
+/**
+ * 订单状态，在 {@link OrderDataset} 中按 ordinal 存成一个 byte
+ */
+public enum OrderStatus {
+    CREATED, PAID, FAILED, REFUNDED;
+
+    private static final OrderStatus[] VALUES = values();
+
+    public static final int COUNT = VALUES.length;
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public static OrderStatus of(int code) {
+        return VALUES[code];
+    }
+
+    /**
+     * 忽略大小写解析，未知状态抛出 IllegalArgumentException
+     */
+    public static OrderStatus parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,46 @@
+package org.dododo.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dododo.concurrent.Deadline;
+import org.dododo.config.DashboardProperties;
+import org.dododo.service.DashboardSection;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+/**
+ * Dashboard 各 section 的缓存，按 userId 缓存
+ */
+@Component
+public class DashboardSectionCache {
+
+    private final boolean enabled;
+    private final Duration loadTimeout;
+    private final Map<DashboardSection, RefreshAheadCache<String, String>> caches = new EnumMap<>(DashboardSection.class);
+
+    public DashboardSectionCache(DashboardProperties properties, MeterRegistry meterRegistry) {
+        DashboardProperties.Cache cache = properties.getCache();
+        this.enabled = cache.isEnabled();
+        this.loadTimeout = cache.getLoadTimeout();
+        for (DashboardSection section : DashboardSection.values()) {
+            caches.put(section, new RefreshAheadCache<>("dashboard." + section.getKey(),
+                    cache.getMaxSize(), cache.getTtl(), cache.getRefreshAfter(), meterRegistry));
+        }
+    }
+
+    /**
+     * 未启用缓存时直接用请求自己的 deadline 加载；
+     * 启用缓存时加载结果会被多个请求共享（包括后台刷新），因此使用独立的 loadTimeout
+     */
+    public CompletableFuture<String> get(DashboardSection section, String userId, Deadline deadline,
+                                         BiFunction<String, Deadline, CompletableFuture<String>> loader) {
+        if (!enabled) {
+            return loader.apply(userId, deadline);
+        }
+        return caches.get(section).get(userId, key -> loader.apply(key, Deadline.after(loadTimeout)));
+    }
+}
@@ -0,0 +1,215 @@
+package org.dododo.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 带容量/TTL 淘汰、提前刷新和请求合并的异步缓存
+ *
+ * <ul>
+ *   <li><b>single-flight</b>：同一个 key 同时只有一次加载，并发未命中的请求共享同一个 future（计为 coalesced）</li>
+ *   <li><b>refresh-ahead</b>：数据超过 refreshAfter 后仍直接返回旧值，同时后台触发一次刷新（计为 stale）</li>
+ *   <li><b>TTL</b>：超过 ttl 的数据不再返回，按未命中处理</li>
+ *   <li><b>容量</b>：超过 maxSize 后先清理过期数据，再按加载时间淘汰最旧的一批（批量淘汰到 90%，避免每次写入都扫描）</li>
+ * </ul>
+ *
+ * 指标：cache.gets{cache, result=hit|stale|miss|coalesced}、cache.evictions{cache}、cache.size{cache}
+ */
+public class RefreshAheadCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+
+    // 只允许一个线程做淘汰扫描
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final Counter hitCounter;
+    private final Counter staleCounter;
+    private final Counter missCounter;
+    private final Counter coalescedCounter;
+    private final Counter evictionCounter;
+
+    public RefreshAheadCache(String name, int maxSize, Duration ttl, Duration refreshAfter, MeterRegistry meterRegistry) {
+        if (refreshAfter.compareTo(ttl) > 0) {
+            throw new IllegalArgumentException("refreshAfter must not be greater than ttl");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAfterNanos = refreshAfter.toNanos();
+
+        this.hitCounter = requestCounter(meterRegistry, name, "hit");
+        this.staleCounter = requestCounter(meterRegistry, name, "stale");
+        this.missCounter = requestCounter(meterRegistry, name, "miss");
+        this.coalescedCounter = requestCounter(meterRegistry, name, "coalesced");
+        this.evictionCounter = Counter.builder("cache.evictions")
+                .description("缓存淘汰次数")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("cache.size", entries, Map::size)
+                .description("缓存条目数")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder("cache.gets")
+                .description("缓存请求次数")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取缓存值；未命中时调用 loader 加载
+     * <p>
+     * 返回的是共享 future 的副本，调用方 cancel 不会影响其他等待同一个 key 的请求
+     */
+    public CompletableFuture<V> get(K key, Function<K, CompletableFuture<V>> loader) {
+        for (;;) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                Entry<V> created = new Entry<>();
+                Entry<V> existing = entries.putIfAbsent(key, created);
+                if (existing == null) {
+                    missCounter.increment();
+                    load(key, created, loader);
+                    evictIfNecessary();
+                    return created.future.copy();
+                }
+                entry = existing;
+            }
+
+            if (!entry.future.isDone()) {
+                // 已有请求在加载，直接等待它的结果
+                coalescedCounter.increment();
+                return entry.future.copy();
+            }
+
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age >= ttlNanos) {
+                // 已过期：移除后按未命中重新走一遍
+                entries.remove(key, entry);
+                continue;
+            }
+            if (age >= refreshAfterNanos) {
+                staleCounter.increment();
+                refresh(key, entry, loader);
+            } else {
+                hitCounter.increment();
+            }
+            return entry.future.copy();
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void load(K key, Entry<V> entry, Function<K, CompletableFuture<V>> loader) {
+        CompletableFuture<V> loading;
+        try {
+            loading = loader.apply(key);
+        } catch (RuntimeException e) {
+            loading = CompletableFuture.failedFuture(e);
+        }
+        loading.whenComplete((value, ex) -> {
+            if (ex != null) {
+                // 失败不缓存：所有合并等待的请求都拿到同一个异常，下一次请求重新加载
+                entries.remove(key, entry);
+                entry.future.completeExceptionally(ex);
+            } else {
+                entry.loadedAt = System.nanoTime();
+                entry.future.complete(value);
+            }
+        });
+    }
+
+    private void refresh(K key, Entry<V> stale, Function<K, CompletableFuture<V>> loader) {
+        if (!stale.refreshing.compareAndSet(false, true)) {
+            return; // 已有后台刷新在进行
+        }
+        CompletableFuture<V> loading;
+        try {
+            loading = loader.apply(key);
+        } catch (RuntimeException e) {
+            loading = CompletableFuture.failedFuture(e);
+        }
+        loading.whenComplete((value, ex) -> {
+            if (ex != null) {
+                // 刷新失败继续使用旧值，直到 TTL 过期
+                stale.refreshing.set(false);
+            } else {
+                entries.replace(key, stale, Entry.loaded(value));
+            }
+        });
+    }
+
+    private void evictIfNecessary() {
+        if (entries.size() <= maxSize || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            List<Map.Entry<K, Entry<V>>> loaded = new ArrayList<>();
+            for (Map.Entry<K, Entry<V>> e : entries.entrySet()) {
+                Entry<V> entry = e.getValue();
+                if (!entry.future.isDone()) {
+                    continue; // 加载中的不淘汰
+                }
+                if (now - entry.loadedAt >= ttlNanos) {
+                    if (entries.remove(e.getKey(), entry)) {
+                        evictionCounter.increment();
+                    }
+                } else {
+                    loaded.add(e);
+                }
+            }
+
+            int target = maxSize - maxSize / 10;
+            int overflow = entries.size() - target;
+            if (overflow <= 0) {
+                return;
+            }
+            loaded.sort(Comparator.comparingLong(e -> e.getValue().loadedAt));
+            for (int i = 0; i < overflow && i < loaded.size(); i++) {
+                Map.Entry<K, Entry<V>> e = loaded.get(i);
+                if (entries.remove(e.getKey(), e.getValue())) {
+                    evictionCounter.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final AtomicBoolean refreshing = new AtomicBoolean(false);
+        volatile long loadedAt;
+
+        static <V> Entry<V> loaded(V value) {
+            Entry<V> entry = new Entry<>();
+            entry.loadedAt = System.nanoTime();
+            entry.future.complete(value);
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.dododo.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于 AIMD（加性增、乘性减）的自适应并发限流器
+ *
+ * <ul>
+ *   <li>请求在 latencyThreshold 内完成：limit += 1 / limit（大约每完成 limit 个请求，limit + 1）</li>
+ *   <li>请求超过 latencyThreshold 或被标记为 dropped（超时等）：limit *= backoffRatio</li>
+ *   <li>同一轮（上一次减小之前就已经进入的请求）的慢请求只触发一次减小，避免一次抖动把 limit 直接打到最小</li>
+ *   <li>只有 inFlight 接近 limit 时才增长，空闲时 limit 不会无限上涨</li>
+ *   <li>被标记为 ignored 的请求（结果说明不了是否过载，例如客户端自己设置了很短的超时）只释放许可，不影响 limit</li>
+ * </ul>
+ *
+ * 使用方式：{@link #tryAcquire()} 返回 null 表示被拒绝；拿到的 {@link Permit} 放进 try-with-resources，保证一定释放。
+ *
+ * 指标：concurrency.limiter.limit / concurrency.limiter.inflight (Gauge)、concurrency.limiter.rejected (Counter)
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    // 写操作都在 synchronized (this) 中
+    private volatile double limit;
+    private long lastDecreaseNanos = System.nanoTime();
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final Counter rejectedCounter;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      Duration latencyThreshold, double backoffRatio, MeterRegistry meterRegistry) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("require 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be in (0, 1)");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+
+        Gauge.builder("concurrency.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("当前并发上限")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        Gauge.builder("concurrency.limiter.inflight", inFlight, AtomicInteger::get)
+                .description("正在处理的请求数")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("concurrency.limiter.rejected")
+                .description("被限流拒绝的请求数")
+                .tag("limiter", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 尝试获取一个并发许可
+     *
+     * @return 许可；超过当前 limit 时返回 null
+     */
+    public Permit tryAcquire() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejectedCounter.increment();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void release(Permit permit) {
+        inFlight.decrementAndGet();
+        if (permit.ignored) {
+            return;
+        }
+        long latency = System.nanoTime() - permit.acquiredAt;
+        if (permit.dropped || latency > latencyThresholdNanos) {
+            decrease(permit.acquiredAt);
+        } else {
+            increase(permit.inFlightAtAcquire);
+        }
+    }
+
+    private synchronized void decrease(long acquiredAt) {
+        if (acquiredAt - lastDecreaseNanos < 0) {
+            return; // 上一次减小之前就进入的请求，已经为它减过了
+        }
+        double newLimit = Math.max(minLimit, limit * backoffRatio);
+        if ((int) newLimit != (int) limit) {
+            log.debug("limiter [{}] limit 减小: {} -> {}", name, (int) limit, (int) newLimit);
+        }
+        limit = newLimit;
+        lastDecreaseNanos = System.nanoTime();
+    }
+
+    private synchronized void increase(int inFlightAtAcquire) {
+        // 负载远低于 limit 时说明 limit 不是瓶颈，不增长
+        if (inFlightAtAcquire * 2 < limit) {
+            return;
+        }
+        limit = Math.min(maxLimit, limit + 1.0 / limit);
+    }
+
+    /**
+     * 并发许可，close 时释放并把本次耗时反馈给限流器
+     */
+    public final class Permit implements AutoCloseable {
+        private final long acquiredAt = System.nanoTime();
+        private final int inFlightAtAcquire;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile boolean dropped;
+        private volatile boolean ignored;
+
+        private Permit(int inFlightAtAcquire) {
+            this.inFlightAtAcquire = inFlightAtAcquire;
+        }
+
+        /**
+         * 标记本次请求因过载而失败（例如超时），释放时 limit 会减小
+         */
+        public void markDropped() {
+            this.dropped = true;
+        }
+
+        /**
+         * 本次请求的结果不作为过载信号，释放时 limit 保持不变
+         */
+        public void markIgnored() {
+            this.ignored = true;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.dododo.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于 {@link MpmcRingBuffer} 的有界工作队列 + 固定数量的消费者线程
+ *
+ * <p>队列满时的背压策略（{@link Backpressure}）：
+ * <ul>
+ *   <li><b>BLOCK</b>：生产者等待空位，最多等 blockTimeout，超时抛出 {@link RejectedExecutionException}</li>
+ *   <li><b>DROP</b>：直接丢弃新任务，返回 false，只记录 dropped 计数</li>
+ *   <li><b>REJECT</b>：立即抛出 {@link RejectedExecutionException}，由调用方向客户端返回错误</li>
+ * </ul>
+ *
+ * 空闲的消费者先自旋、再 yield，之后登记到 parkedConsumers 并无超时地 park，由入队成功的生产者 unpark 其中一个，
+ * 队列长时间为空时消费者不占 CPU；BLOCK 模式下的生产者自旋、yield 后 park 退避（最长 1ms）直到超时。队列本身不加锁。
+ *
+ * <p>指标（tag name）：work.queue.depth / work.queue.capacity (Gauge)，work.queue.enqueued / dequeued / dropped / rejected / removed (Counter)，
+ * work.queue.wait（任务在队列中的时间）和 work.queue.execution（执行耗时）(Timer)
+ */
+@Slf4j
+public class BoundedWorkQueue {
+
+    public enum Backpressure {
+        BLOCK, DROP, REJECT
+    }
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 10;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+    private final MpmcRingBuffer<Entry> buffer;
+    private final Backpressure backpressure;
+    private final long blockTimeoutNanos;
+    private final List<Thread> consumers = new ArrayList<>();
+    // 已经（或即将）park 的空闲消费者，生产者入队后从这里取一个 unpark
+    private final Queue<Thread> parkedConsumers = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    private final Counter enqueuedCounter;
+    private final Counter dequeuedCounter;
+    private final Counter droppedCounter;
+    private final Counter rejectedCounter;
+    private final Counter removedCounter;
+    private final Timer waitTimer;
+    private final Timer executionTimer;
+
+    public BoundedWorkQueue(String name, int capacity, int consumerCount, Backpressure backpressure,
+                            Duration blockTimeout, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.buffer = new MpmcRingBuffer<>(capacity);
+        this.backpressure = backpressure;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+
+        Gauge.builder("work.queue.depth", buffer, MpmcRingBuffer::size)
+                .description("队列中等待执行的任务数")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("work.queue.capacity", buffer, MpmcRingBuffer::capacity)
+                .description("队列容量")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.enqueuedCounter = counter("work.queue.enqueued", "入队任务数", meterRegistry);
+        this.dequeuedCounter = counter("work.queue.dequeued", "被消费者取出的任务数", meterRegistry);
+        this.droppedCounter = counter("work.queue.dropped", "队列满被丢弃的任务数 (DROP)", meterRegistry);
+        this.rejectedCounter = counter("work.queue.rejected", "队列满被拒绝的任务数 (REJECT / BLOCK 超时)", meterRegistry);
+        this.removedCounter = counter("work.queue.removed", "执行前被移除的任务数", meterRegistry);
+        this.waitTimer = Timer.builder("work.queue.wait")
+                .description("任务在队列中等待的时间")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("work.queue.execution")
+                .description("任务执行耗时")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        for (int i = 0; i < consumerCount; i++) {
+            Thread consumer = new Thread(this::consume, name + "-consumer-" + i);
+            consumer.setDaemon(true);
+            consumers.add(consumer);
+            consumer.start();
+        }
+    }
+
+    private Counter counter(String metric, String description, MeterRegistry meterRegistry) {
+        return Counter.builder(metric).description(description).tag("name", name).register(meterRegistry);
+    }
+
+    /**
+     * 提交任务
+     *
+     * @return true 已入队；false 队列满且策略为 DROP
+     * @throws RejectedExecutionException 队列满且策略为 REJECT，或 BLOCK 等待超时，或队列已关闭
+     */
+    public boolean submit(Runnable task) {
+        if (!running) {
+            throw new RejectedExecutionException(name + " is shut down");
+        }
+        Entry entry = new Entry(task, System.nanoTime());
+        if (buffer.offer(entry)) {
+            enqueued();
+            return true;
+        }
+        switch (backpressure) {
+            case DROP -> {
+                droppedCounter.increment();
+                return false;
+            }
+            case BLOCK -> {
+                long deadline = System.nanoTime() + blockTimeoutNanos;
+                int idle = 0;
+                while (running && System.nanoTime() < deadline) {
+                    idle = backoff(idle);
+                    if (buffer.offer(entry)) {
+                        enqueued();
+                        return true;
+                    }
+                }
+                rejectedCounter.increment();
+                throw new RejectedExecutionException(name + " is full, waited " + Duration.ofNanos(blockTimeoutNanos));
+            }
+            default -> {
+                rejectedCounter.increment();
+                throw new RejectedExecutionException(name + " is full");
+            }
+        }
+    }
+
+    private void enqueued() {
+        enqueuedCounter.increment();
+        // 没有消费者 park 时只有一次 volatile 读
+        if (!parkedConsumers.isEmpty()) {
+            Thread consumer = parkedConsumers.poll();
+            if (consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+    }
+
+    /**
+     * 移除一个尚未开始执行的任务（最早入队的那个）
+     *
+     * @return 队列为空时返回 false
+     */
+    public boolean removeOne() {
+        if (buffer.poll() == null) {
+            return false;
+        }
+        removedCounter.increment();
+        return true;
+    }
+
+    public int size() {
+        return buffer.size();
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * 停止消费者；队列中剩余的任务不再执行
+     */
+    public void shutdown() {
+        running = false;
+        for (Thread consumer : consumers) {
+            LockSupport.unpark(consumer);
+        }
+        log.info("{} shut down, {} task(s) left in queue", name, buffer.size());
+    }
+
+    private void consume() {
+        int idle = 0;
+        while (running) {
+            Entry entry = buffer.poll();
+            if (entry == null) {
+                if (idle < SPIN_TRIES + YIELD_TRIES) {
+                    idle = backoff(idle);
+                } else {
+                    parkUntilSignalled();
+                }
+                continue;
+            }
+            idle = 0;
+            dequeuedCounter.increment();
+            long start = System.nanoTime();
+            waitTimer.record(start - entry.enqueuedAt(), TimeUnit.NANOSECONDS);
+            try {
+                entry.task().run();
+            } catch (Throwable e) {
+                log.warn("{} task failed", name, e);
+            } finally {
+                executionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 先登记再检查队列：与生产者 "先入队再检查 parkedConsumers" 配对，两边至少有一方能看到对方，不会错过唤醒。
+     * 被唤醒（或提前拿到 unpark 许可、虚假唤醒、shutdown）后回到 consume 重新 poll。
+     */
+    private void parkUntilSignalled() {
+        Thread current = Thread.currentThread();
+        parkedConsumers.add(current);
+        if (running && buffer.size() == 0) {
+            LockSupport.park(this);
+        }
+        // 被生产者取走时已不在队列中，remove 返回 false
+        parkedConsumers.remove(current);
+    }
+
+    /**
+     * 退避：先自旋，再 yield，最后 park，时长翻倍直到 1ms
+     */
+    private static int backoff(int idle) {
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            int shift = Math.min(idle - SPIN_TRIES - YIELD_TRIES, 10);
+            LockSupport.parkNanos(Math.min(1_000L << shift, MAX_PARK_NANOS));
+        }
+        return idle + 1;
+    }
+
+    private record Entry(Runnable task, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,103 @@
+package org.dododo.concurrent;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求级 deadline：随请求一起传递给下游任务
+ *
+ * <p>任务在开始前和每次阻塞等待时都以 deadline 为上限：
+ * <ul>
+ *   <li>排队太久、开始执行时 deadline 已过 → 直接放弃，不再占用执行器</li>
+ *   <li>阻塞等待（模拟下游调用）最多等到 deadline，不会超出调用方愿意等待的时间</li>
+ *   <li>调用方放弃时调用 {@link #cancel()}，正在等待的任务会被立刻唤醒并退出（协作式取消，不依赖 interrupt）</li>
+ * </ul>
+ *
+ * <p>{@link #child()} 派生出同一到期时间、但可以单独取消的子 deadline（例如对冲请求中输掉的那一次调用），
+ * 父 deadline 取消时所有子 deadline 一起取消。
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private final List<Deadline> children = new CopyOnWriteArrayList<>();
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * 派生子 deadline：到期时间相同，可以单独取消，父 deadline 取消时一起取消
+     */
+    public Deadline child() {
+        Deadline child = new Deadline(deadlineNanos);
+        children.add(child);
+        // 添加之后再检查，保证与并发的 cancel() 不会漏掉
+        if (isCancelled()) {
+            child.cancel();
+        }
+        return child;
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public long remainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(remainingNanos()));
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    public boolean isCancelled() {
+        return cancelled.getCount() == 0;
+    }
+
+    /**
+     * 调用方不再等待结果，唤醒所有在 {@link #sleep(long)} 中等待的任务
+     */
+    public void cancel() {
+        cancelled.countDown();
+        for (Deadline child : children) {
+            child.cancel();
+        }
+    }
+
+    /**
+     * deadline 已过期或已取消时抛出 {@link DeadlineExceededException}
+     */
+    public void check() {
+        if (isCancelled()) {
+            throw new DeadlineExceededException("deadline cancelled");
+        }
+        if (isExpired()) {
+            throw new DeadlineExceededException("deadline exceeded");
+        }
+    }
+
+    /**
+     * 阻塞 millis 毫秒，但不超过 deadline；期间被取消会立刻返回
+     *
+     * @throws DeadlineExceededException 在 millis 到达之前 deadline 过期或被取消
+     */
+    public void sleep(long millis) throws InterruptedException {
+        check();
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining = remainingNanos();
+        if (cancelled.await(Math.min(waitNanos, remaining), TimeUnit.NANOSECONDS)) {
+            throw new DeadlineExceededException("deadline cancelled");
+        }
+        if (waitNanos > remaining) {
+            throw new DeadlineExceededException("deadline exceeded");
+        }
+    }
+}
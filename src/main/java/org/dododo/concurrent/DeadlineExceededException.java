@@ -0,0 +1,11 @@
+package org.dododo.concurrent;
+
+/**
+ * 请求 deadline 已过期或已被取消
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
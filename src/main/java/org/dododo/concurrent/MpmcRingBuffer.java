@@ -0,0 +1,100 @@
+package org.dododo.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界多生产者多消费者环形队列（Dmitry Vyukov 的 bounded MPMC queue），无锁
+ *
+ * <ul>
+ *   <li>每个槽位带一个序号：序号 == 入队位置 表示可写，序号 == 出队位置 + 1 表示可读</li>
+ *   <li>生产者 / 消费者各自 CAS 推进 enqueuePos / dequeuePos 抢占槽位，抢到后写入元素并发布新的序号；
+ *       生产者之间、消费者之间只在同一个计数器上竞争，生产者和消费者互不干扰</li>
+ *   <li>容量向上取整为 2 的幂，用位运算取槽位下标</li>
+ * </ul>
+ *
+ * {@link #offer} 满时返回 false、{@link #poll} 空时返回 null，都不阻塞；阻塞 / 背压策略由调用方决定，见 {@link BoundedWorkQueue}。
+ */
+public class MpmcRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePos = new AtomicLong();
+    private final AtomicLong dequeuePos = new AtomicLong();
+
+    public MpmcRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2 || requestedCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 2 and 2^30: " + requestedCapacity);
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long pos = enqueuePos.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (enqueuePos.weakCompareAndSetVolatile(pos, pos + 1)) {
+                    buffer.set(index, element);
+                    // 发布：消费者看到新序号时一定能看到元素
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = enqueuePos.get();
+            } else if (diff < 0) {
+                // 槽位还没被上一轮的消费者释放：队列已满
+                return false;
+            } else {
+                // 其他生产者已经占用了这个位置
+                pos = enqueuePos.get();
+            }
+        }
+    }
+
+    public E poll() {
+        long pos = dequeuePos.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (dequeuePos.weakCompareAndSetVolatile(pos, pos + 1)) {
+                    E element = buffer.get(index);
+                    buffer.set(index, null);
+                    // 槽位留给下一轮（pos + capacity）的生产者
+                    sequences.set(index, pos + mask + 1);
+                    return element;
+                }
+                pos = dequeuePos.get();
+            } else if (diff < 0) {
+                // 还没有生产者写入：队列为空
+                return null;
+            } else {
+                pos = dequeuePos.get();
+            }
+        }
+    }
+
+    /**
+     * 近似的元素个数（并发修改时只是一个快照）
+     */
+    public int size() {
+        long size = enqueuePos.get() - dequeuePos.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
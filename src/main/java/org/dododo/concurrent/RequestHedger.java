@@ -0,0 +1,220 @@
+package org.dododo.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 对冲请求（hedged request）
+ *
+ * <ul>
+ *   <li>发起第一次调用；如果在观测到的 P95（可配置分位）耗时内还没有完成，再发起一次相同的调用</li>
+ *   <li>先成功的结果获胜，另一次调用通过子 {@link Deadline} 取消</li>
+ *   <li>两次都失败才算失败</li>
+ *   <li>额外负载受预算限制：每个请求积累 budgetPercent% 个令牌，每次对冲消耗 1 个令牌（最多积累 {@link #MAX_TOKENS} 个），
+ *       保证对冲带来的额外调用长期不超过 budgetPercent%</li>
+ *   <li>样本不足 {@link #MIN_SAMPLES} 个时没有可靠的分位数，不对冲</li>
+ *   <li>原请求输给对冲或被取消时，把结果确定时已经过去的时间记为它的耗时（真实耗时只会更长），
+ *       否则慢的原请求永远进不了样本窗口，分位数只剩快样本，对冲延迟越来越小、对冲越来越多</li>
+ * </ul>
+ *
+ * 指标：hedging.fired{name}、hedging.won{name}、hedging.skipped{name, reason=budget}
+ */
+public class RequestHedger {
+
+    static final int MIN_SAMPLES = 20;
+    static final int MAX_TOKENS = 10;
+    // 每隔多少个样本重新计算一次分位数
+    private static final int RECOMPUTE_EVERY = 50;
+    private static final long TOKEN_SCALE = 1000;
+
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long tokensPerRequest;
+
+    // 最近 windowSize 个耗时样本（毫秒），环形覆盖
+    private final long[] window;
+    private int windowCount;
+    private int windowPos;
+    private long recordedSinceRecompute;
+    private volatile long hedgeDelayMillis = -1;
+
+    private final AtomicLong tokens = new AtomicLong(0);
+
+    private final Counter firedCounter;
+    private final Counter wonCounter;
+    private final Counter budgetSkippedCounter;
+
+    public RequestHedger(String name, double percentile, int windowSize, Duration minDelay,
+                         double budgetPercent, MeterRegistry meterRegistry) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1)");
+        }
+        this.percentile = percentile;
+        this.window = new long[Math.max(windowSize, MIN_SAMPLES)];
+        this.minDelayMillis = minDelay.toMillis();
+        this.tokensPerRequest = Math.round(budgetPercent / 100 * TOKEN_SCALE);
+
+        this.firedCounter = Counter.builder("hedging.fired")
+                .description("发起的对冲请求数")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.wonCounter = Counter.builder("hedging.won")
+                .description("对冲请求先于原请求完成的次数")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.budgetSkippedCounter = Counter.builder("hedging.skipped")
+                .description("因预算不足未发起的对冲")
+                .tag("name", name)
+                .tag("reason", "budget")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 执行一次（可能被对冲的）调用
+     *
+     * @param deadline 整体 deadline，每次调用使用它的子 deadline
+     * @param attempt  发起一次调用
+     */
+    public <T> CompletableFuture<T> call(Deadline deadline, Function<Deadline, CompletableFuture<T>> attempt) {
+        addTokens();
+        Race<T> race = new Race<>();
+        // 结果确定（成功 / 失败 / 调用方取消）后，取消所有仍在进行的调用
+        race.result.whenComplete((value, ex) -> {
+            if (race.primaryRecorded.compareAndSet(false, true)) {
+                // 原请求还没完成就被取消：记下它至少花了多久
+                record(elapsedMillis(race.primaryStart));
+            }
+            race.deadlines.forEach(Deadline::cancel);
+        });
+
+        launch(race, deadline, attempt, false);
+
+        long delay = hedgeDelayMillis;
+        if (delay >= 0 && delay < deadline.remainingMillis()) {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+                if (race.result.isDone()) {
+                    return;
+                }
+                if (!tryConsumeToken()) {
+                    budgetSkippedCounter.increment();
+                    return;
+                }
+                firedCounter.increment();
+                launch(race, deadline, attempt, true);
+            });
+        }
+        return race.result;
+    }
+
+    /**
+     * 当前的对冲延迟（毫秒），样本不足时为 -1
+     */
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    private <T> void launch(Race<T> race, Deadline deadline, Function<Deadline, CompletableFuture<T>> attempt, boolean hedge) {
+        Deadline attemptDeadline = deadline.child();
+        race.deadlines.add(attemptDeadline);
+        race.pending.incrementAndGet();
+        if (race.result.isDone()) {
+            attemptDeadline.cancel();
+        }
+        long start = System.nanoTime();
+        if (!hedge) {
+            race.primaryStart = start;
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = attempt.apply(attemptDeadline);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, ex) -> {
+            // 原请求只记一次：成功时记实际耗时，deadline 到期时记已经过去的时间；其他原因失败的不算样本
+            boolean sample = hedge ? ex == null
+                    : race.primaryRecorded.compareAndSet(false, true) && (ex == null || isDeadlineExceeded(ex));
+            if (sample) {
+                record(elapsedMillis(start));
+            }
+            if (ex == null) {
+                if (race.result.complete(value) && hedge) {
+                    wonCounter.increment();
+                }
+            } else if (race.pending.decrementAndGet() == 0) {
+                // 所有已发起的调用都失败了
+                race.result.completeExceptionally(ex);
+            }
+        });
+    }
+
+    private static boolean isDeadlineExceeded(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof DeadlineExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private synchronized void record(long latencyMillis) {
+        window[windowPos] = latencyMillis;
+        windowPos = (windowPos + 1) % window.length;
+        if (windowCount < window.length) {
+            windowCount++;
+        }
+        if (windowCount >= MIN_SAMPLES && (hedgeDelayMillis < 0 || ++recordedSinceRecompute >= RECOMPUTE_EVERY)) {
+            recordedSinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(window, windowCount);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * windowCount) - 1;
+            hedgeDelayMillis = Math.max(minDelayMillis, sorted[Math.max(0, index)]);
+        }
+    }
+
+    private void addTokens() {
+        long max = MAX_TOKENS * TOKEN_SCALE;
+        long current;
+        do {
+            current = tokens.get();
+            if (current >= max) {
+                return;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(max, current + tokensPerRequest)));
+    }
+
+    private boolean tryConsumeToken() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN_SCALE) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN_SCALE));
+        return true;
+    }
+
+    private static final class Race<T> {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final List<Deadline> deadlines = new CopyOnWriteArrayList<>();
+        final AtomicInteger pending = new AtomicInteger(0);
+        final AtomicBoolean primaryRecorded = new AtomicBoolean(false);
+        volatile long primaryStart;
+    }
+}
@@ -0,0 +1,33 @@
+package org.dododo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+@Configuration
+@EnableConfigurationProperties(AnalyticsProperties.class)
+public class AnalyticsConfig {
+
+    /**
+     * /api/analytics 的 fork/join 聚合专用线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool analyticsPool(AnalyticsProperties properties, MeterRegistry meterRegistry) {
+        int parallelism = properties.getParallelism() > 0
+                ? properties.getParallelism() : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("analytics-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        // 窃取次数、排队任务数、活跃线程数：executor.*{name=analyticsPool}
+        new ExecutorServiceMetrics(pool, "analyticsPool", Tags.empty()).bindTo(meterRegistry);
+        return pool;
+    }
+}
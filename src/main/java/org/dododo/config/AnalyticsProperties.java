@@ -0,0 +1,21 @@
+package org.dododo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 订单 / 支付分析（/api/analytics）配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.analytics")
+public class AnalyticsProperties {
+
+    // 专用 ForkJoinPool 的并行度，0 表示 CPU 核数；不使用 commonPool，避免大查询占满 CompletableFuture / parallelStream 的线程
+    private int parallelism = 0;
+    // 模拟数据集的上限：每条记录 13 字节，20M 条约 260MB
+    private int maxRecords = 20_000_000;
+    // 用户数上限：按用户分组时每个叶子任务要分配 12 字节 × 用户数，叶子至少是用户数的 8 倍，所以一次查询合计不超过每条记录约 3 字节
+    private int maxUsers = 1_000_000;
+    // /users/top 最多返回的用户数
+    private int maxTopUsers = 1000;
+}
@@ -1,28 +1,105 @@
 package org.dododo.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.dododo.executor.AsyncTaskTagPostProcessor;
+import org.dododo.executor.BoundedVirtualThreadExecutor;
+import org.dododo.executor.CountingAbortPolicy;
+import org.dododo.executor.TimingTaskDecorator;
+import org.dododo.executor.TunableThreadPoolTaskExecutor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.system.JavaVersion;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.ThreadPoolExecutor;
 
+@Slf4j
 @Configuration
 @EnableAsync
+@EnableScheduling
+@EnableConfigurationProperties(AsyncProperties.class)
 public class AsyncConfig {
 
-    @Bean("myExecutor")
-    public Executor myExecutor() {
-        ThreadPoolTaskExecutor t = new ThreadPoolTaskExecutor();
-        t.setCorePoolSize(10);  // 核心线程数
-        t.setMaxPoolSize(30);   // 最大线程数
-        t.setKeepAliveSeconds(10);
-        t.setQueueCapacity(20);
-        t.setThreadNamePrefix("Darren-executors-");
-        // 拒绝策略：由调用者所在的线程执行
-        t.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    private final Environment environment;
+
+    public AsyncConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * 给 @Async 方法统一打上方法名标签（async.task.* 指标的 method 标签）
+     */
+    @Bean
+    public static AsyncTaskTagPostProcessor asyncTaskTagPostProcessor() {
+        return new AsyncTaskTagPostProcessor();
+    }
+
+    // ===== 舱壁隔离：每个 dashboard 下游一个独立执行器，慢的 recommendations 不会挤占 userInfo 的线程 =====
+    // 舱壁执行器满了直接拒绝（不在调用方线程执行、也不阻塞调用方），否则一个慢下游仍然会占满共享的请求线程
+
+    @Bean("userInfoExecutor")
+    public Executor userInfoExecutor(AsyncProperties properties, MeterRegistry meterRegistry) {
+        return buildExecutor("userInfoExecutor", "userInfo", properties.getMode(), properties.bulkhead("userInfo"), meterRegistry);
+    }
+
+    @Bean("ordersExecutor")
+    public Executor ordersExecutor(AsyncProperties properties, MeterRegistry meterRegistry) {
+        return buildExecutor("ordersExecutor", "orders", properties.getMode(), properties.bulkhead("orders"), meterRegistry);
+    }
+
+    @Bean("recommendationsExecutor")
+    public Executor recommendationsExecutor(AsyncProperties properties, MeterRegistry meterRegistry) {
+        return buildExecutor("recommendationsExecutor", "recommendations", properties.getMode(), properties.bulkhead("recommendations"), meterRegistry);
+    }
+
+    private Executor buildExecutor(String name, String threadPrefix, AsyncProperties.Mode mode,
+                                   AsyncProperties.Pool pool, MeterRegistry meterRegistry) {
+        if (mode == AsyncProperties.Mode.VIRTUAL) {
+            requireVirtualThreads();
+            // 虚拟线程：阻塞（sleep / IO）时只挂起虚拟线程，不占用平台线程，也就不再需要队列
+            BoundedVirtualThreadExecutor t = new BoundedVirtualThreadExecutor(name, threadPrefix + "-vt-",
+                    pool.getVirtualConcurrencyLimit(), meterRegistry);
+            t.setTaskDecorator(new TimingTaskDecorator(name, meterRegistry));
+            log.info("{} 使用虚拟线程模式, concurrencyLimit={}（满了直接拒绝）", name, pool.getVirtualConcurrencyLimit());
+            return t;
+        }
+
+        // 可在运行时调整 core / max / queue，见 ExecutorAutoTuner 和 /actuator/executor
+        TunableThreadPoolTaskExecutor t = new TunableThreadPoolTaskExecutor();
+        t.setCorePoolSize(pool.getCorePoolSize());  // 核心线程数
+        t.setMaxPoolSize(pool.getMaxPoolSize());    // 最大线程数
+        t.setKeepAliveSeconds(pool.getKeepAliveSeconds());
+        t.setQueueCapacity(pool.getQueueCapacity());
+        t.setThreadNamePrefix(threadPrefix + "-executors-");
+        // 拒绝策略（并计数）：队列满后直接拒绝
+        t.setRejectedExecutionHandler(new CountingAbortPolicy(name, meterRegistry));
+        // 每个任务的排队时间 / 执行时间
+        t.setTaskDecorator(new TimingTaskDecorator(name, meterRegistry));
         t.initialize();
+        // 活跃线程数、线程池大小、队列深度、已完成任务数等：executor.*{name=执行器名}
+        new ExecutorServiceMetrics(t.getThreadPoolExecutor(), name, Tags.empty()).bindTo(meterRegistry);
         return t;
     }
+
+    /**
+     * virtual 模式需要 JDK 21，并且要同时打开 Spring Boot 自己的 spring.threads.virtual.enabled：
+     * Tomcat 请求线程由 Boot 的 TomcatVirtualThreadsWebServerFactoryCustomizer 切换为虚拟线程。
+     * 条件不满足时在启动阶段给出明确的错误，而不是等到第一次创建虚拟线程时才失败
+     */
+    private void requireVirtualThreads() {
+        if (JavaVersion.getJavaVersion().isOlderThan(JavaVersion.TWENTY_ONE)) {
+            throw new IllegalStateException("app.async.mode=virtual 需要 JDK 21+，当前运行在 JDK "
+                    + JavaVersion.getJavaVersion() + "，请改用 app.async.mode=platform");
+        }
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            throw new IllegalStateException("app.async.mode=virtual 需要同时设置 spring.threads.virtual.enabled=true");
+        }
+    }
 }
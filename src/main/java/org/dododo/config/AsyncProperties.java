@@ -0,0 +1,73 @@
+package org.dododo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Async 执行器配置
+ * <p>
+ * bulkheads: 每个下游（dashboard section）独立的执行器，key 为 section 名，执行器 bean 名为 {key}Executor
+ * <p>
+ * mode = platform: 每个舱壁一个可调的 ThreadPoolTaskExecutor，队列满后直接拒绝
+ * mode = virtual : 每个任务一个虚拟线程，并用 virtual-concurrency-limit 限制同时运行的任务数，超过后直接拒绝
+ *                 （需要 JDK 21+，并同时设置 spring.threads.virtual.enabled=true，否则启动失败）
+ */
+@Data
+@ConfigurationProperties(prefix = "app.async")
+public class AsyncProperties {
+
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    private Mode mode = Mode.PLATFORM;
+
+    // ===== 舱壁隔离：每个下游独立的执行器（platform 模式下独立线程池，virtual 模式下独立并发上限） =====
+    private Map<String, Pool> bulkheads = new LinkedHashMap<>();
+
+    @Data
+    public static class Pool {
+        // ===== platform 模式 =====
+        private int corePoolSize = 10;
+        private int maxPoolSize = 30;
+        private int queueCapacity = 20;
+        private int keepAliveSeconds = 10;
+        // ===== virtual 模式：同时执行的虚拟线程任务上限，超过后直接拒绝 =====
+        private int virtualConcurrencyLimit = 1000;
+    }
+
+    /**
+     * 未配置的下游使用 Pool 的默认值
+     */
+    public Pool bulkhead(String name) {
+        return bulkheads.getOrDefault(name, new Pool());
+    }
+
+    // ===== platform 模式下的运行时自动调优 =====
+    private Tuning tuning = new Tuning();
+
+    @Data
+    public static class Tuning {
+        private boolean enabled = true;
+        // 采样间隔
+        private long intervalMs = 5000;
+
+        // 调整范围
+        private int minCorePoolSize = 5;
+        private int maxCorePoolSize = 100;
+        private int minMaxPoolSize = 10;
+        private int maxMaxPoolSize = 200;
+        private int minQueueCapacity = 10;
+        private int maxQueueCapacity = 500;
+
+        // 活跃线程 / 最大线程 超过该值，或平均排队时间超过 targetQueueWaitMs，视为饱和 -> 扩容
+        private double highUtilization = 0.8;
+        // 活跃线程 / 最大线程 低于该值且队列为空 -> 缩容
+        private double lowUtilization = 0.3;
+        private long targetQueueWaitMs = 20;
+    }
+}
@@ -0,0 +1,56 @@
+package org.dododo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dododo.concurrent.BoundedWorkQueue;
+import org.dododo.pool.ObjectPool;
+import org.dododo.pool.PooledObjectFactory;
+import org.dododo.service.PaymentGatewayConnection;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(BusinessProperties.class)
+public class BusinessConfig {
+
+    /**
+     * /api/business/queue 背后的任务队列
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedWorkQueue businessWorkQueue(BusinessProperties properties, MeterRegistry meterRegistry) {
+        BusinessProperties.Queue queue = properties.getQueue();
+        return new BoundedWorkQueue("business", queue.getCapacity(), queue.getConsumers(),
+                queue.getBackpressure(), queue.getBlockTimeout(), meterRegistry);
+    }
+
+    /**
+     * 支付网关连接池（BusinessMetricsService.processPayment 使用）
+     */
+    @Bean(destroyMethod = "close")
+    public ObjectPool<PaymentGatewayConnection> paymentGatewayPool(BusinessProperties properties,
+                                                                  MeterRegistry meterRegistry) {
+        BusinessProperties.GatewayPool pool = properties.getGatewayPool();
+        PooledObjectFactory<PaymentGatewayConnection> factory = new PooledObjectFactory<>() {
+            @Override
+            public PaymentGatewayConnection create() throws Exception {
+                return PaymentGatewayConnection.connect();
+            }
+
+            @Override
+            public boolean validate(PaymentGatewayConnection connection) {
+                return connection.isOpen();
+            }
+
+            @Override
+            public void destroy(PaymentGatewayConnection connection) {
+                connection.close();
+            }
+        };
+        ObjectPool<PaymentGatewayConnection> gatewayPool = new ObjectPool<>("payment-gateway", factory,
+                pool.getMinIdle(), pool.getMaxSize(), pool.getBorrowTimeout(), pool.getIdleTimeout(),
+                pool.getValidateAfterIdle(), pool.getEvictionInterval(), meterRegistry);
+        gatewayPool.setLeakDetectionThreshold(pool.getLeakDetectionThreshold());
+        gatewayPool.setCaptureStackTraces(pool.isCaptureStackTraces());
+        return gatewayPool;
+    }
+}
@@ -0,0 +1,110 @@
+package org.dododo.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.dododo.concurrent.BoundedWorkQueue;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 业务示例（/api/business）相关配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.business")
+public class BusinessProperties {
+
+    private Queue queue = new Queue();
+    private Pipeline pipeline = new Pipeline();
+    private LoadTest loadTest = new LoadTest();
+    private Sessions sessions = new Sessions();
+    private Idempotency idempotency = new Idempotency();
+    private GatewayPool gatewayPool = new GatewayPool();
+
+    @Data
+    public static class Queue {
+        // 环形队列容量，向上取整为 2 的幂
+        private int capacity = 1024;
+        private int consumers = 4;
+        // 队列满时：BLOCK 等待空位（最多 blockTimeout）| DROP 丢弃新任务 | REJECT 立即拒绝
+        private BoundedWorkQueue.Backpressure backpressure = BoundedWorkQueue.Backpressure.BLOCK;
+        private Duration blockTimeout = Duration.ofMillis(100);
+        // 模拟的任务处理耗时范围
+        private Duration minWork = Duration.ofMillis(20);
+        private Duration maxWork = Duration.ofMillis(70);
+    }
+
+    @Data
+    public static class Pipeline {
+        // 下单阶段：请求线程只负责入队，队列满直接拒绝（503）
+        private Stage order = new Stage(256, 8, Duration.ZERO);
+        // 支付阶段：队列满时下单阶段的工作线程等待（向上游传导背压），超过 blockTimeout 任务失败
+        private Stage payment = new Stage(256, 16, Duration.ofSeconds(5));
+        // 已结束的任务保留多久，供状态查询
+        private Duration retention = Duration.ofMinutes(10);
+        // 最多跟踪的任务数（含已结束但仍在保留期内的）
+        private int maxTrackedJobs = 100000;
+    }
+
+    @Data
+    public static class Sessions {
+        // 超过该时间没有活动的会话视为过期
+        private Duration timeout = Duration.ofMinutes(30);
+        // 清理过期会话的间隔
+        private long sweepIntervalMs = 10000;
+        // 最多跟踪的会话数
+        private int maxSessions = 1000000;
+        // 去重用户 HyperLogLog 精度：2^precision 字节 / 时间片，12 -> 4KB，误差约 1.6%
+        private int hllPrecision = 12;
+    }
+
+    @Data
+    public static class Idempotency {
+        // 已完成的支付结果保留多久，期间同一个 Idempotency-Key 直接返回缓存结果
+        private Duration ttl = Duration.ofHours(1);
+        // 最多保存的 key 数，超出后淘汰最旧的
+        private int maxKeys = 100000;
+        // 同一个 key 的请求正在处理时，后来的请求最多等待多久
+        private Duration waitTimeout = Duration.ofSeconds(5);
+        // Idempotency-Key 最大长度
+        private int maxKeyLength = 128;
+    }
+
+    @Data
+    public static class GatewayPool {
+        // 启动时预先建立、空闲淘汰后仍保留的连接数
+        private int minIdle = 5;
+        // 最大连接数，也就是同时进行的支付数上限
+        private int maxSize = 50;
+        // 连接用完时最多等待多久，超时的支付直接失败
+        private Duration borrowTimeout = Duration.ofSeconds(2);
+        // 空闲超过该时间的连接被关闭（保留 minIdle 个）
+        private Duration idleTimeout = Duration.ofMinutes(5);
+        // 空闲超过该时间的连接借出前先检查是否仍然可用
+        private Duration validateAfterIdle = Duration.ofSeconds(5);
+        // 空闲连接淘汰的执行间隔
+        private Duration evictionInterval = Duration.ofSeconds(30);
+        // 连接被占用超过该时间视为疑似泄漏（pool.leaks + WARN 日志），0 关闭
+        private Duration leakDetectionThreshold = Duration.ofSeconds(10);
+        // 借用时记录调用栈，泄漏日志和 /actuator/pools 中会带上借出位置；有额外开销，排查问题时再打开
+        private boolean captureStackTraces = false;
+    }
+
+    @Data
+    public static class LoadTest {
+        // 单次压测参数的上限，防止误操作把节点压垮
+        private int maxRate = 10000;
+        private Duration maxDuration = Duration.ofMinutes(10);
+        private int maxConcurrency = 1000;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stage {
+        private int capacity;
+        private int workers;
+        private Duration blockTimeout;
+    }
+}
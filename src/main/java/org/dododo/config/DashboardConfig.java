@@ -0,0 +1,23 @@
+package org.dododo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dododo.concurrent.AdaptiveConcurrencyLimiter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DashboardProperties.class)
+public class DashboardConfig {
+
+    /**
+     * Dashboard 接口的自适应并发限流器（替代固定的 Semaphore(2)）
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter dashboardLimiter(DashboardProperties properties, MeterRegistry meterRegistry) {
+        DashboardProperties.Limiter limiter = properties.getLimiter();
+        return new AdaptiveConcurrencyLimiter("dashboard",
+                limiter.getInitialLimit(), limiter.getMinLimit(), limiter.getMaxLimit(),
+                limiter.getLatencyThreshold(), limiter.getBackoffRatio(), meterRegistry);
+    }
+}
@@ -0,0 +1,91 @@
+package org.dododo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dashboard 相关配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.dashboard")
+public class DashboardProperties {
+
+    private Cache cache = new Cache();
+    private DeadlinePolicy deadline = new DeadlinePolicy();
+    private Limiter limiter = new Limiter();
+    private Batch batch = new Batch();
+    private Hedging hedging = new Hedging();
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        // 每个 section 最多缓存的用户数
+        private int maxSize = 10000;
+        // 超过 ttl 的数据视为过期，必须重新加载
+        private Duration ttl = Duration.ofSeconds(60);
+        // 超过 refreshAfter（但未过期）时直接返回旧值，同时在后台刷新 (stale-while-revalidate)
+        private Duration refreshAfter = Duration.ofSeconds(30);
+        // 缓存加载是多个请求共享的，使用独立的 deadline，而不是触发加载那个请求的 deadline
+        private Duration loadTimeout = Duration.ofSeconds(3);
+    }
+
+    @Data
+    public static class DeadlinePolicy {
+        // 请求未指定 timeoutMs 时的默认 deadline
+        private Duration defaultTimeout = Duration.ofSeconds(3);
+        // 请求可指定的最大 deadline
+        private Duration maxTimeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Limiter {
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 500;
+        // 请求耗时超过该值视为过载信号，limit 乘以 backoffRatio
+        private Duration latencyThreshold = Duration.ofSeconds(2);
+        private double backoffRatio = 0.9;
+    }
+
+    @Data
+    public static class Batch {
+        // 一个批次最多包含的用户数，每个批次每个 section 一次下游调用
+        private int maxBatchSize = 100;
+        // 一次请求最多允许的用户数
+        private int maxUsers = 1000;
+
+        // 非正数会让分批死循环，启动时绑定配置就失败
+        public void setMaxBatchSize(int maxBatchSize) {
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("max-batch-size must be positive: " + maxBatchSize);
+            }
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public void setMaxUsers(int maxUsers) {
+            if (maxUsers < 1) {
+                throw new IllegalArgumentException("max-users must be positive: " + maxUsers);
+            }
+            this.maxUsers = maxUsers;
+        }
+    }
+
+    @Data
+    public static class Hedging {
+        private boolean enabled = false;
+        // 需要对冲的 section（DashboardSection 的 key）
+        private List<String> sections = new ArrayList<>(List.of("recommendations"));
+        // 超过该分位的耗时仍未完成时发起对冲
+        private double percentile = 0.95;
+        // 用于计算分位数的最近样本数
+        private int windowSize = 1000;
+        // 对冲延迟下限，避免耗时很短时频繁对冲
+        private Duration minDelay = Duration.ofMillis(50);
+        // 对冲带来的额外调用占比上限（%）
+        private double budgetPercent = 10;
+    }
+}
@@ -0,0 +1,16 @@
+package org.dododo.config;
+
+import org.dododo.id.SnowflakeIdGenerator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(IdProperties.class)
+public class IdConfig {
+
+    @Bean
+    public SnowflakeIdGenerator idGenerator(IdProperties properties) {
+        return new SnowflakeIdGenerator(properties.getNodeId(), properties.getMaxClockBackwardMs());
+    }
+}
@@ -0,0 +1,17 @@
+package org.dododo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * ID 生成器配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.id")
+public class IdProperties {
+
+    // 节点 ID（0 ~ 1023），同一集群内每个实例必须不同
+    private long nodeId = 0;
+    // 可容忍的时钟回拨（毫秒），范围内沿用上次的时间戳继续发号（该毫秒序号用完才等时钟追上），超过则生成失败
+    private long maxClockBackwardMs = 10;
+}
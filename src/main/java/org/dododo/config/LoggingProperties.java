@@ -0,0 +1,26 @@
+package org.dododo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 业务日志采样配置（异步输出见 logback-spring.xml 中的 async-logging profile）
+ */
+@Data
+@ConfigurationProperties(prefix = "app.logging")
+public class LoggingProperties {
+
+    private Sampling sampling = new Sampling();
+
+    @Data
+    public static class Sampling {
+        private boolean enabled = true;
+        // 每个调用点每秒最多输出的日志条数，0 表示不限流
+        private int maxPerSecond = 10;
+        // 按调用点单独配置，例如 order.created: 100
+        private Map<String, Integer> sites = new HashMap<>();
+    }
+}
@@ -0,0 +1,27 @@
+package org.dododo.config;
+
+import jakarta.servlet.Filter;
+import org.dododo.metrics.MetricsAggregator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(MetricsProperties.class)
+public class MetricsConfig {
+
+    /**
+     * 抓取指标前先 flush 本地预聚合的 Counter，保证抓到的是最新值
+     */
+    @Bean
+    public FilterRegistrationBean<Filter> metricsFlushFilter(MetricsAggregator aggregator) {
+        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+            aggregator.flush();
+            chain.doFilter(request, response);
+        });
+        registration.addUrlPatterns("/actuator/prometheus", "/actuator/metrics/*");
+        registration.setName("metricsFlushFilter");
+        return registration;
+    }
+}
@@ -0,0 +1,50 @@
+package org.dododo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 业务指标相关配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.metrics")
+public class MetricsProperties {
+
+    private Cardinality cardinality = new Cardinality();
+    private Aggregation aggregation = new Aggregation();
+    private Bulk bulk = new Bulk();
+    private LatencyWindow latencyWindow = new LatencyWindow();
+
+    @Data
+    public static class Cardinality {
+        // 每个指标名最多的时间序列（标签值组合）数，超出的归入 other
+        private int maxSeriesPerMetric = 100;
+        // recordBusinessMetric 可动态创建的指标名数量上限
+        private int maxDynamicMetricNames = 50;
+    }
+
+    @Data
+    public static class Aggregation {
+        // 本地预聚合的 Counter 定期写入 MeterRegistry 的间隔（抓取前也会 flush）
+        private long flushIntervalMs = 1000;
+    }
+
+    @Data
+    public static class LatencyWindow {
+        // /actuator/latency 统计的滑动窗口长度，切成 slices 个时间片滚动
+        private Duration window = Duration.ofSeconds(60);
+        private int slices = 6;
+    }
+
+    @Data
+    public static class Bulk {
+        // 单个 bulk 请求最多读取的行数（空行也计入），达到后不再读取剩余的请求体
+        private int maxLines = 100000;
+        // 单行最大字符数，超出的行计为 rejected，且只缓冲这么多字符
+        private int maxLineLength = 4096;
+        // 错误行数达到该值后不再读取剩余的请求体，响应中的错误明细也不会超过这么多条
+        private int maxErrors = 10;
+    }
+}
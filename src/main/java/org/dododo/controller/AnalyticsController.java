@@ -0,0 +1,100 @@
+package org.dododo.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.dododo.analytics.OrderStatus;
+import org.dododo.service.OrderAnalyticsService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/**
+ * 订单 / 支付数据的并行分析接口
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final OrderAnalyticsService orderAnalyticsService;
+
+    /**
+     * 生成模拟数据集（替换当前数据集），同一个 seed 生成的数据相同；已经有一次生成在进行时返回 409
+     * 测试: curl -X POST "http://localhost:8080/api/analytics/dataset?records=10000000&users=100000&seed=42"
+     */
+    @PostMapping("/dataset")
+    public Map<String, Object> generateDataset(
+            @RequestParam(defaultValue = "10000000") int records,
+            @RequestParam(defaultValue = "100000") int users,
+            @RequestParam(defaultValue = "42") long seed) {
+        try {
+            return orderAnalyticsService.generate(records, users, seed);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    /**
+     * 当前数据集信息
+     * 测试: curl "http://localhost:8080/api/analytics/dataset"
+     */
+    @GetMapping("/dataset")
+    public Map<String, Object> getDataset() {
+        requireDataset();
+        return orderAnalyticsService.describeDataset();
+    }
+
+    /**
+     * 按状态汇总：订单数、金额合计 / 最小 / 最大 / 平均
+     * 测试: curl "http://localhost:8080/api/analytics/summary"
+     */
+    @GetMapping("/summary")
+    public Map<String, Object> getSummary() {
+        requireDataset();
+        return orderAnalyticsService.summary();
+    }
+
+    /**
+     * 金额合计最高的用户，status 为空时统计全部订单
+     * 测试: curl "http://localhost:8080/api/analytics/users/top?status=PAID&limit=10"
+     */
+    @GetMapping("/users/top")
+    public Map<String, Object> getTopUsers(
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "10") int limit) {
+        requireDataset();
+        try {
+            OrderStatus orderStatus = status == null || status.isBlank() ? null : OrderStatus.parse(status);
+            return orderAnalyticsService.topUsers(orderStatus, limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * 扩展性测试：分别用 1, 2, 4 ... maxParallelism 个线程跑按状态汇总，返回耗时和加速比
+     * 测试: curl "http://localhost:8080/api/analytics/scaling?maxParallelism=8"
+     */
+    @GetMapping("/scaling")
+    public Map<String, Object> getScaling(
+            @RequestParam(required = false) Integer maxParallelism) {
+        requireDataset();
+        int parallelism = maxParallelism != null ? maxParallelism : Runtime.getRuntime().availableProcessors();
+        try {
+            return orderAnalyticsService.scaling(parallelism);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    private void requireDataset() {
+        if (!orderAnalyticsService.hasDataset()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "还没有生成数据集，请先调用 POST /api/analytics/dataset");
+        }
+    }
+}
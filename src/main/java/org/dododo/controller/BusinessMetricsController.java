@@ -1,11 +1,25 @@
 package org.dododo.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.dododo.service.BulkEventIngestionService;
 import org.dododo.service.BusinessMetricsService;
+import org.dododo.service.LoadGenerator;
+import org.dododo.service.OrderPipeline;
+import org.dododo.service.PaymentIdempotency;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 业务指标测试接口
@@ -16,6 +30,10 @@ import java.util.Map;
 public class BusinessMetricsController {
 
     private final BusinessMetricsService businessMetricsService;
+    private final BulkEventIngestionService bulkEventIngestionService;
+    private final OrderPipeline orderPipeline;
+    private final LoadGenerator loadGenerator;
+    private final PaymentIdempotency paymentIdempotency;
 
     /**
      * 创建订单
@@ -40,19 +58,92 @@ public class BusinessMetricsController {
 
     /**
      * 处理支付
-     * 测试: curl -X POST "http://localhost:8080/api/business/payment?orderId=ORDER_123&amount=99.9"
+     * 带 Idempotency-Key 时，同一个 key 的重试不会重复扣款：处理中的请求等待第一次的结果，已完成的直接返回缓存结果
+     * 测试: curl -X POST -H "Idempotency-Key: pay-123" "http://localhost:8080/api/business/payment?orderId=ORDER_123&amount=99.9"
      */
     @PostMapping("/payment")
     public Map<String, Object> processPayment(
             @RequestParam String orderId,
-            @RequestParam double amount) {
+            @RequestParam double amount,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey)
+            throws ExecutionException, InterruptedException {
         Map<String, Object> result = new HashMap<>();
-        boolean success = businessMetricsService.processPayment(orderId, amount);
+        boolean success;
+        if (idempotencyKey == null) {
+            try {
+                success = businessMetricsService.processPayment(orderId, amount);
+            } catch (BusinessMetricsService.PaymentUnavailableException e) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+            }
+        } else {
+            PaymentIdempotency.Result idempotent;
+            try {
+                idempotent = paymentIdempotency.processPayment(idempotencyKey, orderId, amount);
+            } catch (BusinessMetricsService.PaymentUnavailableException e) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            } catch (PaymentIdempotency.ConflictException e) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+            } catch (TimeoutException e) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "相同 Idempotency-Key 的请求仍在处理中，请稍后重试");
+            }
+            success = idempotent.payment().success();
+            result.put("idempotentReplay", idempotent.outcome() != PaymentIdempotency.Outcome.EXECUTED);
+        }
         result.put("success", success);
         result.put("message", success ? "支付成功" : "支付失败");
         return result;
     }
 
+    /**
+     * 异步下单 + 支付：请求线程只负责入队
+     * wait=false（默认）立即返回 202 和 jobId，通过 GET /pipeline/{jobId} 查询进度；
+     * wait=true 返回 CompletableFuture，流水线完成后再响应（等待期间不占用请求线程）
+     * 测试: curl -X POST "http://localhost:8080/api/business/pipeline/order?userId=user001&amount=99.9"
+     */
+    @PostMapping("/pipeline/order")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> submitPipelineOrder(
+            @RequestParam String userId,
+            @RequestParam double amount,
+            @RequestParam(defaultValue = "false") boolean wait) {
+        OrderPipeline.Job job;
+        try {
+            job = orderPipeline.submit(userId, amount);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "下单队列已满，请稍后再试");
+        }
+        if (!wait) {
+            return CompletableFuture.completedFuture(ResponseEntity.accepted().body(toResult(job)));
+        }
+        return job.getFuture().thenApply(finished -> ResponseEntity.ok(toResult(finished)));
+    }
+
+    /**
+     * 查询流水线任务状态
+     * 测试: curl "http://localhost:8080/api/business/pipeline/JOB_xxx"
+     */
+    @GetMapping("/pipeline/{jobId}")
+    public Map<String, Object> getPipelineJob(@PathVariable String jobId) {
+        OrderPipeline.Job job = orderPipeline.getJob(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "任务不存在或已过期: " + jobId);
+        }
+        return toResult(job);
+    }
+
+    private Map<String, Object> toResult(OrderPipeline.Job job) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("jobId", job.getJobId());
+        result.put("status", job.getStatus());
+        result.put("success", job.getStatus() == OrderPipeline.Status.COMPLETED);
+        result.put("orderId", job.getOrderId());
+        result.put("paymentSuccess", job.isPaymentSuccess());
+        result.put("message", job.getError());
+        result.put("elapsedMs", job.getElapsedMillis());
+        return result;
+    }
+
     /**
      * 用户登录
      * 测试: curl -X POST "http://localhost:8080/api/business/login?userId=user001"
@@ -85,10 +176,16 @@ public class BusinessMetricsController {
      */
     @PostMapping("/queue/add")
     public Map<String, Object> addToQueue() {
-        businessMetricsService.addToQueue();
+        boolean accepted;
+        try {
+            accepted = businessMetricsService.addToQueue();
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "队列已满，请稍后再试");
+        }
         Map<String, Object> result = new HashMap<>();
-        result.put("success", true);
-        result.put("message", "任务已添加到队列");
+        result.put("success", accepted);
+        result.put("message", accepted ? "任务已添加到队列" : "队列已满，任务被丢弃");
+        result.put("queueSize", businessMetricsService.getQueueSize());
         return result;
     }
 
@@ -98,10 +195,11 @@ public class BusinessMetricsController {
      */
     @PostMapping("/queue/remove")
     public Map<String, Object> removeFromQueue() {
-        businessMetricsService.removeFromQueue();
+        boolean removed = businessMetricsService.removeFromQueue();
         Map<String, Object> result = new HashMap<>();
-        result.put("success", true);
-        result.put("message", "任务已从队列移除");
+        result.put("success", removed);
+        result.put("message", removed ? "任务已从队列移除" : "队列为空");
+        result.put("queueSize", businessMetricsService.getQueueSize());
         return result;
     }
 
@@ -121,44 +219,66 @@ public class BusinessMetricsController {
     }
 
     /**
-     * 批量测试 - 模拟真实业务场景
-     * 测试: curl -X POST "http://localhost:8080/api/business/simulate?count=10"
+     * 批量上报自定义事件 / 业务指标，请求体为 NDJSON（每行一个 JSON 对象），逐行解析并按 key 聚合后写入指标
+     * 测试: printf '{"type":"user_action","status":"success"}\n{"metric":"business.gmv","businessType":"vip","value":99.9}\n' |
+     *       curl -X POST -H "Content-Type: application/x-ndjson" --data-binary @- "http://localhost:8080/api/business/events/bulk"
      */
-    @PostMapping("/simulate")
-    public Map<String, Object> simulateBusinessScenario(@RequestParam(defaultValue = "10") int count) {
+    @PostMapping("/events/bulk")
+    public Map<String, Object> recordEvents(InputStream body) throws IOException {
+        BulkEventIngestionService.IngestResult ingestResult = bulkEventIngestionService.ingest(body);
         Map<String, Object> result = new HashMap<>();
-        int successCount = 0;
-        
-        for (int i = 0; i < count; i++) {
-            try {
-                // 模拟用户登录
-                businessMetricsService.userLogin("user" + i);
-                
-                // 模拟创建订单
-                String orderId = businessMetricsService.createOrder("user" + i, 100.0 + i);
-                
-                // 模拟支付
-                boolean paymentSuccess = businessMetricsService.processPayment(orderId, 100.0 + i);
-                
-                if (paymentSuccess) {
-                    successCount++;
-                }
-                
-                // 部分用户登出
-                if (i % 3 == 0) {
-                    businessMetricsService.userLogout("user" + i);
-                }
-                
-                Thread.sleep(100); // 避免过快
-            } catch (Exception e) {
-                // 记录失败
-            }
+        result.put("success", ingestResult.getRejected() == 0 && !ingestResult.isTruncated());
+        result.put("accepted", ingestResult.getAccepted());
+        result.put("rejected", ingestResult.getRejected());
+        result.put("truncated", ingestResult.isTruncated());
+        result.put("errors", ingestResult.getErrors());
+        return result;
+    }
+
+    /**
+     * 内置压测（开放模型）：按目标速率发出 login / order / payment / logout / pipeline 混合请求，异步执行，立即返回
+     * 测试: curl -X POST "http://localhost:8080/api/business/simulate?rate=200&durationSeconds=30&concurrency=64&mix=login:1,order:2,payment:2,logout:1"
+     */
+    @PostMapping("/simulate")
+    public ResponseEntity<Map<String, Object>> simulateBusinessScenario(
+            @RequestParam(defaultValue = "100") int rate,
+            @RequestParam(defaultValue = "30") long durationSeconds,
+            @RequestParam(defaultValue = "64") int concurrency,
+            @RequestParam(defaultValue = "login:1,order:2,payment:2,logout:1") String mix) {
+        LoadGenerator.Run run;
+        try {
+            run = loadGenerator.start(rate, Duration.ofSeconds(durationSeconds), concurrency, mix);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
         }
-        
-        result.put("success", true);
-        result.put("totalRequests", count);
-        result.put("successCount", successCount);
-        result.put("message", "业务场景模拟完成");
+        return ResponseEntity.accepted().body(run.report());
+    }
+
+    /**
+     * 当前 / 最近一次压测的吞吐、错误率和延迟分布
+     * 测试: curl "http://localhost:8080/api/business/simulate"
+     */
+    @GetMapping("/simulate")
+    public Map<String, Object> getSimulationReport() {
+        LoadGenerator.Run run = loadGenerator.current();
+        if (run == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "还没有运行过压测");
+        }
+        return run.report();
+    }
+
+    /**
+     * 提前停止压测
+     * 测试: curl -X DELETE "http://localhost:8080/api/business/simulate"
+     */
+    @DeleteMapping("/simulate")
+    public Map<String, Object> stopSimulation() {
+        boolean stopped = loadGenerator.stop();
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", stopped);
+        result.put("message", stopped ? "压测正在停止" : "没有正在运行的压测");
         return result;
     }
 }
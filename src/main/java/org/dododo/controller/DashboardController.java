@@ -1,17 +1,34 @@
 package org.dododo.controller;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dododo.cache.DashboardSectionCache;
+import org.dododo.concurrent.AdaptiveConcurrencyLimiter;
+import org.dododo.concurrent.Deadline;
+import org.dododo.config.DashboardProperties;
+import org.dododo.service.DashboardSection;
 import org.dododo.service.DashboardService;
+import org.dododo.service.SectionHedging;
+import org.dododo.service.SectionStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 @Slf4j
 @RestController
@@ -20,77 +37,392 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
 
-    private Semaphore semaphore = new Semaphore(2);
+    @Autowired
+    private DashboardSectionCache sectionCache;
 
-    @GetMapping("/synchronizers")
-    public Map<String, Object> getDashboard() {
-        try {
-            if (!semaphore.tryAcquire()) {
-                log.warn("限流，无法访问");
-                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "系统繁忙，请稍后再试 (Rate Limited)");
-//                return Map.of("code", 503, "message", "系统繁忙，请稍后再试 (Rate Limited)");
-            }
+    @Autowired
+    private DashboardProperties dashboardProperties;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter dashboardLimiter;
+
+    @Autowired
+    private SectionHedging sectionHedging;
 
+    @GetMapping("/synchronizers")
+    public Map<String, Object> getDashboard(@RequestParam(required = false) Long timeoutMs) {
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        // try-with-resources 保证无论正常返回还是抛出异常都会释放许可
+        try (permit) {
             int taskCount = 3;
             CountDownLatch latch = new CountDownLatch(taskCount);
             Map<String, Object> res = new ConcurrentHashMap<>();
 
             long start = System.currentTimeMillis();
+            Deadline deadline = newDeadline(timeoutMs);
 
             // 分发任务
-            dashboardService.fetchUserInfo(res, latch);
-            dashboardService.fetchOrders(res, latch);
-            dashboardService.fetchRecommendations(res, latch);
+            Set<DashboardSection> rejected = EnumSet.noneOf(DashboardSection.class);
+            dispatch(DashboardSection.USER_INFO, () -> dashboardService.fetchUserInfo(res, latch, deadline), latch, rejected);
+            dispatch(DashboardSection.ORDERS, () -> dashboardService.fetchOrders(res, latch, deadline), latch, rejected);
+            dispatch(DashboardSection.RECOMMENDATIONS, () -> dashboardService.fetchRecommendations(res, latch, deadline), latch, rejected);
 
-            boolean finished = latch.await(3, TimeUnit.SECONDS);
+            boolean finished = latch.await(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+            // 不再等待：还在执行的任务立刻退出，排队中的任务开始时直接放弃
+            deadline.cancel();
+            if (!finished) {
+                reportTimeout(permit, timeoutMs);
+            }
+
+            // 取快照，避免迟到的任务在序列化时继续写入
+            Map<String, Object> result = new HashMap<>(res);
+            Map<String, SectionStatus> sectionStatus = new LinkedHashMap<>();
+            for (DashboardSection section : DashboardSection.values()) {
+                SectionStatus status = result.containsKey(section.getSynchronizersKey()) ? SectionStatus.OK
+                        : rejected.contains(section) ? SectionStatus.REJECTED : SectionStatus.TIMEOUT;
+                sectionStatus.put(section.getSynchronizersKey(), status);
+            }
 
             long cost = System.currentTimeMillis() - start;
-            res.put("processTimeMs", cost);
-            res.put("allFinished", finished);
+            result.put("sectionStatus", sectionStatus);
+            result.put("processTimeMs", cost);
+            result.put("allFinished", finished);
 
-            semaphore.release();
-            return res;
+            return result;
         } catch (InterruptedException exception) {
             log.error("InterruptedException: {}", exception.getLocalizedMessage());
-            semaphore.release();
             return Map.of("code", 500, "message", "server internal error");
         }
     }
 
     @GetMapping("/completableFuture")
-    public Map<String, Object> getDashboardWithFuture() {
+    public Map<String, Object> getDashboardWithFuture(@RequestParam(defaultValue = "Supremes") String userId,
+                                                      @RequestParam(required = false) Long timeoutMs) {
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        // try-with-resources 保证无论正常返回还是抛出异常都会释放许可
+        try (permit) {
+            long start = System.currentTimeMillis();
+            Deadline deadline = newDeadline(timeoutMs);
+
+            Map<DashboardSection, CompletableFuture<String>> futures = fetchSections(userId, deadline);
+
+            try {
+                if (!awaitSettled(futures.values(), deadline)) {
+                    // 超时：下面按 section 分别判断，返回已经完成的部分
+                    log.warn("Dashboard 部分 section 未在 deadline 内完成, userId={}", userId);
+                }
+            } finally {
+                deadline.cancel();
+            }
+
+            Map<String, Object> finalResult = new HashMap<>();
+            Map<String, SectionStatus> sectionStatus = new LinkedHashMap<>();
+            boolean allFinished = true;
+            for (Map.Entry<DashboardSection, CompletableFuture<String>> entry : futures.entrySet()) {
+                CompletableFuture<String> future = entry.getValue();
+                future.cancel(false); // 已完成的 future 不受影响
+                SectionStatus status = SectionStatus.of(future);
+                if (status == SectionStatus.OK) {
+                    finalResult.put(entry.getKey().getKey(), future.join());
+                } else {
+                    allFinished = false;
+                }
+                sectionStatus.put(entry.getKey().getKey(), status);
+            }
+
+            finalResult.put("sectionStatus", sectionStatus);
+            finalResult.put("allFinished", allFinished);
+            finalResult.put("costTime", System.currentTimeMillis() - start);
+            if (sectionStatus.containsValue(SectionStatus.TIMEOUT)) {
+                reportTimeout(permit, timeoutMs);
+            }
+
+            log.debug("Dashboard 返回, userId={}, allFinished={}, sectionStatus={}", userId, allFinished, sectionStatus);
+            return finalResult;
+        } catch (InterruptedException exception) {
+            log.error("Exception: {}", exception.getLocalizedMessage());
+            return Map.of("code", 500, "message", "server internal error");
+        }
+    }
+
+    /**
+     * SSE 版本：每个 section 完成后立即推送，首字节时间取决于最快的 section 而不是最慢的
+     * 测试: curl -N "http://localhost:8080/api/dashboard/stream?userId=u1"
+     *
+     * 事件：
+     *   event: userInfo / orders / recommendations
+     *   data : {"section","status","data","elapsedMs"}
+     *   event: complete
+     *   data : {"sectionStatus","allFinished","costTime"}
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDashboard(@RequestParam(defaultValue = "Supremes") String userId,
+                                      @RequestParam(required = false) Long timeoutMs) {
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        long start = System.currentTimeMillis();
+        Deadline deadline = newDeadline(timeoutMs);
+
+        // emitter 比 deadline 多留一点时间，正常情况下由 deadline 负责结束流
+        SseEmitter emitter = new SseEmitter(deadline.remainingMillis() + 1000);
+        // 连接结束（正常完成 / 超时 / 客户端断开）都释放许可并取消未完成的任务
+        emitter.onCompletion(() -> {
+            deadline.cancel();
+            permit.close();
+        });
+        emitter.onTimeout(deadline::cancel);
+        emitter.onError(ex -> deadline.cancel());
+
+        Map<DashboardSection, CompletableFuture<String>> futures;
+        try {
+            futures = fetchSections(userId, deadline);
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+
+        Map<String, SectionStatus> sectionStatus = new ConcurrentHashMap<>();
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        futures.forEach((section, future) -> future.whenComplete((value, ex) -> {
+            SectionStatus status = SectionStatus.of(future);
+            sectionStatus.put(section.getKey(), status);
+            if (status == SectionStatus.TIMEOUT) {
+                timedOut.set(true);
+            }
+
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("section", section.getKey());
+            payload.put("status", status);
+            payload.put("data", status == SectionStatus.OK ? value : null);
+            payload.put("elapsedMs", System.currentTimeMillis() - start);
+            sendEvent(emitter, deadline, section.getKey(), payload);
+
+            if (remaining.decrementAndGet() == 0) {
+                Map<String, Object> summary = new HashMap<>();
+                summary.put("sectionStatus", sectionStatus);
+                summary.put("allFinished", sectionStatus.values().stream().allMatch(s -> s == SectionStatus.OK));
+                summary.put("costTime", System.currentTimeMillis() - start);
+                sendEvent(emitter, deadline, "complete", summary);
+                if (timedOut.get()) {
+                    reportTimeout(permit, timeoutMs);
+                }
+                emitter.complete();
+            }
+        }));
+
+        // deadline 到期后取消还没完成的 section（缓存加载使用独立的 deadline，这里需要单独兜底）
+        CompletableFuture.delayedExecutor(deadline.remainingMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> futures.values().forEach(future -> future.cancel(false)));
+        return emitter;
+    }
+
+    private void sendEvent(SseEmitter emitter, Deadline deadline, String name, Object payload) {
         try {
-            if (!semaphore.tryAcquire()) {
-                log.warn("限流，无法访问");
-                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "系统繁忙，请稍后再试 (Rate Limited)");
-//                return Map.of("code", 503, "message", "系统繁忙，请稍后再试 (Rate Limited)");
+            // 多个 section 可能在不同线程同时完成，串行写出
+            synchronized (emitter) {
+                emitter.send(SseEmitter.event().name(name).data(payload, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开，剩下的任务也不用再做了
+            log.debug("SSE 推送失败: {}", e.getMessage());
+            deadline.cancel();
+        }
+    }
+
+    /**
+     * 批量 Dashboard：一次请求加载多个用户
+     * 用户按 max-batch-size 分批，每批每个 section 只调用一次批量下游接口，
+     * 执行器任务数和下游往返次数从 3 * N 降为 3 * 批次数
+     * 测试: curl -X POST "http://localhost:8080/api/dashboard/batch" -H "Content-Type: application/json" -d '["u1","u2","u3"]'
+     */
+    @PostMapping("/batch")
+    public Map<String, Object> getDashboardBatch(@RequestBody List<String> userIds,
+                                                 @RequestParam(required = false) Long timeoutMs) {
+        DashboardProperties.Batch batch = dashboardProperties.getBatch();
+        for (String userId : userIds) {
+            if (userId == null || userId.isBlank()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userIds 不能包含 null 或空字符串");
             }
+        }
+        List<String> distinctUserIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+        if (distinctUserIds.isEmpty() || distinctUserIds.size() > batch.getMaxUsers()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userIds 数量必须在 1 ~ " + batch.getMaxUsers() + " 之间");
+        }
 
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        try (permit) {
             long start = System.currentTimeMillis();
+            Deadline deadline = newDeadline(timeoutMs);
 
-            // 分发任务
-            CompletableFuture<String> userFuture = dashboardService.fetchUserInfo();
-            CompletableFuture<String> ordersFuture = dashboardService.fetchOrders();
-            CompletableFuture<String> recommendationsFuture = dashboardService.fetchRecommendations();
+            List<List<String>> chunks = partition(distinctUserIds, batch.getMaxBatchSize());
+            List<Map<DashboardSection, CompletableFuture<Map<String, String>>>> batchFutures = new ArrayList<>();
+            List<CompletableFuture<Map<String, String>>> allFutures = new ArrayList<>();
+            for (List<String> chunk : chunks) {
+                Map<DashboardSection, CompletableFuture<Map<String, String>>> futures = new EnumMap<>(DashboardSection.class);
+                futures.put(DashboardSection.USER_INFO, submit(() -> dashboardService.fetchUserInfoBatch(chunk, deadline)));
+                futures.put(DashboardSection.ORDERS, submit(() -> dashboardService.fetchOrdersBatch(chunk, deadline)));
+                futures.put(DashboardSection.RECOMMENDATIONS, submit(() -> dashboardService.fetchRecommendationsBatch(chunk, deadline)));
+                batchFutures.add(futures);
+                allFutures.addAll(futures.values());
+            }
 
-            CompletableFuture.allOf(userFuture, ordersFuture, recommendationsFuture).join();
+            try {
+                if (!awaitSettled(allFutures, deadline)) {
+                    log.warn("批量 Dashboard 部分批次未在 deadline 内完成, users={}", distinctUserIds.size());
+                }
+            } finally {
+                deadline.cancel();
+            }
 
+            Map<String, Map<String, Object>> dashboards = new LinkedHashMap<>();
+            Map<String, Map<String, SectionStatus>> statuses = new LinkedHashMap<>();
+            boolean allFinished = true;
+            for (int i = 0; i < chunks.size(); i++) {
+                for (Map.Entry<DashboardSection, CompletableFuture<Map<String, String>>> entry : batchFutures.get(i).entrySet()) {
+                    CompletableFuture<Map<String, String>> future = entry.getValue();
+                    future.cancel(false);
+                    SectionStatus batchStatus = SectionStatus.of(future);
+                    Map<String, String> values = batchStatus == SectionStatus.OK ? future.join() : Map.of();
+                    for (String userId : chunks.get(i)) {
+                        String value = values.get(userId);
+                        // 批次成功但下游没有返回该用户，按失败处理
+                        SectionStatus status = value != null ? SectionStatus.OK
+                                : batchStatus == SectionStatus.OK ? SectionStatus.FAILED : batchStatus;
+                        if (value != null) {
+                            dashboards.computeIfAbsent(userId, k -> new LinkedHashMap<>()).put(entry.getKey().getKey(), value);
+                        } else {
+                            allFinished = false;
+                        }
+                        statuses.computeIfAbsent(userId, k -> new LinkedHashMap<>()).put(entry.getKey().getKey(), status);
+                    }
+                }
+            }
+            for (String userId : distinctUserIds) {
+                dashboards.computeIfAbsent(userId, k -> new LinkedHashMap<>()).put("sectionStatus", statuses.get(userId));
+            }
+            if (statuses.values().stream().anyMatch(s -> s.containsValue(SectionStatus.TIMEOUT))) {
+                reportTimeout(permit, timeoutMs);
+            }
 
-            long cost = System.currentTimeMillis() - start;
             Map<String, Object> finalResult = new HashMap<>();
-            finalResult.put("userInfo", userFuture.get()); // 处理可能的 ExecutionException
-            finalResult.put("orders", ordersFuture.get());
-            finalResult.put("recommendations", recommendationsFuture.get());
-
+            finalResult.put("dashboards", dashboards);
+            finalResult.put("userCount", distinctUserIds.size());
+            finalResult.put("batchCount", chunks.size());
+            finalResult.put("downstreamCalls", allFutures.size());
+            finalResult.put("allFinished", allFinished);
             finalResult.put("costTime", System.currentTimeMillis() - start);
-
-            semaphore.release();
-            log.warn("成功");
             return finalResult;
-        } catch (InterruptedException | ExecutionException exception) {
+        } catch (InterruptedException exception) {
             log.error("Exception: {}", exception.getLocalizedMessage());
-            semaphore.release();
             return Map.of("code", 500, "message", "server internal error");
         }
     }
+
+    /**
+     * 等待所有 future 结束（成功或失败），最多等到 deadline；单个失败不影响其他 future 继续执行
+     *
+     * @return deadline 之前全部结束返回 true
+     */
+    private boolean awaitSettled(Collection<? extends CompletableFuture<?>> futures, Deadline deadline) throws InterruptedException {
+        CompletableFuture<?>[] settled = futures.stream()
+                .map(future -> future.handle((value, ex) -> null))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(settled).get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            // handle 已经吞掉了异常，不会走到这里
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> List<List<T>> partition(List<T> list, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("partition size must be positive: " + size);
+        }
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += size) {
+            chunks.add(list.subList(i, Math.min(i + size, list.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * 分发任务（先查缓存，并发未命中的请求会合并为一次加载；配置了对冲的 section 在加载时会对冲）
+     */
+    private Map<DashboardSection, CompletableFuture<String>> fetchSections(String userId, Deadline deadline) {
+        Map<DashboardSection, CompletableFuture<String>> futures = new EnumMap<>(DashboardSection.class);
+        futures.put(DashboardSection.USER_INFO, fetchSection(DashboardSection.USER_INFO, userId, deadline, dashboardService::fetchUserInfo));
+        futures.put(DashboardSection.ORDERS, fetchSection(DashboardSection.ORDERS, userId, deadline, dashboardService::fetchOrders));
+        futures.put(DashboardSection.RECOMMENDATIONS, fetchSection(DashboardSection.RECOMMENDATIONS, userId, deadline, dashboardService::fetchRecommendations));
+        return futures;
+    }
+
+    private CompletableFuture<String> fetchSection(DashboardSection section, String userId, Deadline deadline,
+                                                   BiFunction<String, Deadline, CompletableFuture<String>> loader) {
+        BiFunction<String, Deadline, CompletableFuture<String>> guarded = (id, d) -> submit(() -> loader.apply(id, d));
+        return sectionCache.get(section, userId, deadline, sectionHedging.wrap(section, guarded));
+    }
+
+    /**
+     * 舱壁执行器已满时 @Async 调用直接抛出 TaskRejectedException，转成失败的 future，SectionStatus 报告为 REJECTED
+     */
+    private static <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 同上，void 版本的任务被拒绝后不会再 countDown，由这里代为 countDown 并记下被拒绝的 section
+     */
+    private static void dispatch(DashboardSection section, Runnable call, CountDownLatch latch, Set<DashboardSection> rejected) {
+        try {
+            call.run();
+        } catch (RejectedExecutionException e) {
+            rejected.add(section);
+            latch.countDown();
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter.Permit acquirePermit() {
+        AdaptiveConcurrencyLimiter.Permit permit = dashboardLimiter.tryAcquire();
+        if (permit == null) {
+            log.warn("限流，无法访问 (limit={}, inFlight={})", dashboardLimiter.getLimit(), dashboardLimiter.getInFlight());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "系统繁忙，请稍后再试 (Rate Limited)");
+        }
+        return permit;
+    }
+
+    /**
+     * 超时是过载信号，反馈给限流器减小 limit
+     * 但 deadline 是客户端缩短到默认值以下的，超时说明不了服务端过载，不计入（否则反复传 timeoutMs=1 就能把所有人的 limit 压到最小）
+     */
+    private void reportTimeout(AdaptiveConcurrencyLimiter.Permit permit, Long timeoutMs) {
+        if (effectiveTimeout(timeoutMs).compareTo(dashboardProperties.getDeadline().getDefaultTimeout()) >= 0) {
+            permit.markDropped();
+        } else {
+            permit.markIgnored();
+        }
+    }
+
+    private Deadline newDeadline(Long timeoutMs) {
+        return Deadline.after(effectiveTimeout(timeoutMs));
+    }
+
+    /**
+     * 请求可以通过 timeoutMs 指定 deadline，不超过配置的最大值
+     */
+    private Duration effectiveTimeout(Long timeoutMs) {
+        DashboardProperties.DeadlinePolicy policy = dashboardProperties.getDeadline();
+        if (timeoutMs == null || timeoutMs <= 0) {
+            return policy.getDefaultTimeout();
+        }
+        Duration requested = Duration.ofMillis(timeoutMs);
+        return requested.compareTo(policy.getMaxTimeout()) > 0 ? policy.getMaxTimeout() : requested;
+    }
 }
@@ -0,0 +1,30 @@
+package org.dododo.executor;
+
+/**
+ * 标记当前线程正在执行的 @Async 方法名，供 {@link TimingTaskDecorator} 给耗时指标打 method 标签
+ * <p>
+ * TaskDecorator 只能拿到 Spring 包装后的 Runnable，看不到被调用的方法，
+ * 因此由 {@link AsyncTaskTagPostProcessor} 的拦截器在任务开始时调用 {@link #set(String)}，任务结束后由 decorator 读取并清理。
+ */
+public final class AsyncTaskTag {
+
+    static final String UNKNOWN = "unknown";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private AsyncTaskTag() {
+    }
+
+    static void set(String method) {
+        CURRENT.set(method);
+    }
+
+    /**
+     * 读取并清理当前线程的方法名，未设置时返回 unknown
+     */
+    static String remove() {
+        String method = CURRENT.get();
+        CURRENT.remove();
+        return method != null ? method : UNKNOWN;
+    }
+}
@@ -0,0 +1,31 @@
+package org.dododo.executor;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Async;
+
+/**
+ * 给所有 @Async 方法加一层拦截，在执行器线程上把方法名写入 {@link AsyncTaskTag}，@Async 方法本身不用再手动打标签
+ * <p>
+ * 本处理器先于 @EnableAsync 的 AsyncAnnotationBeanPostProcessor 执行：后者发现 bean 已经是代理时，
+ * 会把异步拦截器插到最前面，于是这里的拦截器排在异步拦截器之后，在提交到执行器的任务里运行。
+ */
+public class AsyncTaskTagPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    public AsyncTaskTagPostProcessor() {
+        // 与 AsyncAnnotationAdvisor 相同：类上或方法上的 @Async
+        Pointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(Async.class, true))
+                .union(new AnnotationMatchingPointcut(null, Async.class, true));
+        MethodInterceptor interceptor = invocation -> {
+            AsyncTaskTag.set(invocation.getMethod().getName());
+            return invocation.proceed();
+        };
+        this.advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
+        setOrder(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,50 @@
+package org.dododo.executor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 每个任务一个虚拟线程，同时运行的任务数有上限；达到上限时直接拒绝而不是让提交方等待
+ * <p>
+ * SimpleAsyncTaskExecutor 自带的 concurrencyLimit 会阻塞提交线程（通常是请求线程），
+ * 舱壁执行器满了以后请求线程被一起拖住，隔离就失效了，所以这里用 tryAcquire 代替。
+ */
+public class BoundedVirtualThreadExecutor extends SimpleAsyncTaskExecutor {
+
+    private final int limit;
+    private final Semaphore permits;
+    private final Counter rejectedCounter;
+
+    public BoundedVirtualThreadExecutor(String executorName, String threadNamePrefix, int limit,
+                                        MeterRegistry meterRegistry) {
+        super(threadNamePrefix);
+        setVirtualThreads(true);
+        this.limit = limit;
+        this.permits = new Semaphore(limit);
+        this.rejectedCounter = CountingAbortPolicy.rejectedCounter(executorName, meterRegistry);
+    }
+
+    @Override
+    protected void doExecute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            rejectedCounter.increment();
+            throw new TaskRejectedException("Executor " + this + " reached its limit of " + limit + " running tasks");
+        }
+        try {
+            super.doExecute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+}
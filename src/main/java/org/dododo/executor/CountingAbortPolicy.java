@@ -0,0 +1,31 @@
+package org.dododo.executor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * AbortPolicy + 计数：舱壁执行器饱和时直接拒绝（提交方收到 TaskRejectedException），不占用调用方线程
+ */
+public class CountingAbortPolicy extends ThreadPoolExecutor.AbortPolicy {
+
+    private final Counter rejectedCounter;
+
+    public CountingAbortPolicy(String executorName, MeterRegistry meterRegistry) {
+        this.rejectedCounter = rejectedCounter(executorName, meterRegistry);
+    }
+
+    static Counter rejectedCounter(String executorName, MeterRegistry meterRegistry) {
+        return Counter.builder("executor.rejected")
+                .description("执行器饱和后直接拒绝的任务数")
+                .tag("name", executorName)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
+        rejectedCounter.increment();
+        super.rejectedExecution(r, e);
+    }
+}
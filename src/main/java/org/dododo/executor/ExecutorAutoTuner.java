@@ -0,0 +1,149 @@
+package org.dododo.executor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.dododo.config.AsyncProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池自动调优：定期采样利用率、排队时间和溢出次数（队列满后被拒绝的任务数），在配置范围内调整 core / max / queue
+ *
+ * <ul>
+ *   <li><b>饱和</b>（活跃线程/最大线程 >= highUtilization，或平均排队时间 > targetQueueWaitMs，或发生溢出）：
+ *       core / max 扩大 25%；线程数已到上限且仍在溢出时，队列扩大 50%，尽量少拒绝</li>
+ *   <li><b>空闲</b>（活跃线程/最大线程 < lowUtilization 且队列为空）：core / max / queue 缩小 25%，不低于下限</li>
+ * </ul>
+ *
+ * 通过 actuator 手动调整某个执行器后，该执行器的自动调优会暂停，直到重新开启。
+ */
+@Slf4j
+@Component
+public class ExecutorAutoTuner {
+
+    private final Map<String, Executor> executors;
+    private final AsyncProperties.Tuning tuning;
+    private final MeterRegistry meterRegistry;
+
+    // 手动覆盖后暂停自动调优的执行器
+    private final Set<String> paused = ConcurrentHashMap.newKeySet();
+    private final Map<String, Sample> lastSamples = new ConcurrentHashMap<>();
+
+    public ExecutorAutoTuner(Map<String, Executor> executors, AsyncProperties properties, MeterRegistry meterRegistry) {
+        this.executors = executors;
+        this.tuning = properties.getTuning();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 所有可调优的执行器（virtual 模式下没有）
+     */
+    public Map<String, TunableThreadPoolTaskExecutor> tunableExecutors() {
+        Map<String, TunableThreadPoolTaskExecutor> result = new TreeMap<>();
+        executors.forEach((name, executor) -> {
+            if (executor instanceof TunableThreadPoolTaskExecutor tunable) {
+                result.put(name, tunable);
+            }
+        });
+        return result;
+    }
+
+    public boolean isAutoTuning(String name) {
+        return tuning.isEnabled() && !paused.contains(name);
+    }
+
+    public void setAutoTuning(String name, boolean enabled) {
+        if (enabled) {
+            paused.remove(name);
+        } else {
+            paused.add(name);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.async.tuning.interval-ms:5000}")
+    public void tune() {
+        if (!tuning.isEnabled()) {
+            return;
+        }
+        tunableExecutors().forEach((name, executor) -> {
+            Sample current = sample(name, executor);
+            Sample previous = lastSamples.put(name, current);
+            if (previous == null || paused.contains(name)) {
+                return;
+            }
+            adjust(name, executor, previous, current);
+        });
+    }
+
+    private void adjust(String name, TunableThreadPoolTaskExecutor executor, Sample previous, Sample current) {
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        int core = pool.getCorePoolSize();
+        int max = pool.getMaximumPoolSize();
+        int queueCapacity = executor.getQueueCapacity();
+
+        double utilization = (double) pool.getActiveCount() / max;
+        long waitedTasks = current.queueWaitCount - previous.queueWaitCount;
+        double avgQueueWaitMs = waitedTasks > 0
+                ? (current.queueWaitTotalMs - previous.queueWaitTotalMs) / waitedTasks : 0;
+        double overflows = current.overflows - previous.overflows;
+
+        int newCore = core;
+        int newMax = max;
+        int newQueue = queueCapacity;
+        if (utilization >= tuning.getHighUtilization() || avgQueueWaitMs > tuning.getTargetQueueWaitMs() || overflows > 0) {
+            newCore = clamp(grow(core, 1.25), tuning.getMinCorePoolSize(), tuning.getMaxCorePoolSize());
+            newMax = clamp(grow(max, 1.25), tuning.getMinMaxPoolSize(), tuning.getMaxMaxPoolSize());
+            if (newMax == max && overflows > 0) {
+                newQueue = clamp(grow(queueCapacity, 1.5), tuning.getMinQueueCapacity(), tuning.getMaxQueueCapacity());
+            }
+        } else if (utilization < tuning.getLowUtilization() && pool.getQueue().isEmpty()) {
+            newCore = clamp((int) (core * 0.75), tuning.getMinCorePoolSize(), tuning.getMaxCorePoolSize());
+            newMax = clamp((int) (max * 0.75), tuning.getMinMaxPoolSize(), tuning.getMaxMaxPoolSize());
+            newQueue = clamp((int) (queueCapacity * 0.75), tuning.getMinQueueCapacity(), tuning.getMaxQueueCapacity());
+        }
+        newMax = Math.max(newMax, newCore);
+
+        if (newCore != core || newMax != max || newQueue != queueCapacity) {
+            executor.resize(newCore, newMax, newQueue);
+            log.info("线程池 [{}] 自动调整: core {} -> {}, max {} -> {}, queue {} -> {} (utilization={}, avgQueueWaitMs={}, overflows={})",
+                    name, core, newCore, max, newMax, queueCapacity, newQueue,
+                    String.format("%.2f", utilization), String.format("%.1f", avgQueueWaitMs), (long) overflows);
+        }
+    }
+
+    private Sample sample(String name, TunableThreadPoolTaskExecutor executor) {
+        long count = 0;
+        double totalMs = 0;
+        for (Timer timer : meterRegistry.find("async.task.queue.wait").tag("executor", name).timers()) {
+            count += timer.count();
+            totalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+        }
+        return new Sample(count, totalMs, count("executor.rejected", name));
+    }
+
+    private double count(String counterName, String executorName) {
+        Counter counter = meterRegistry.find(counterName).tag("name", executorName).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static int grow(int value, double factor) {
+        return Math.max(value + 1, (int) Math.ceil(value * factor));
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private record Sample(long queueWaitCount, double queueWaitTotalMs, double overflows) {
+    }
+}
@@ -0,0 +1,101 @@
+package org.dododo.executor;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 查看 / 在线调整线程池大小
+ * <pre>
+ * curl http://localhost:8080/actuator/executor
+ * curl http://localhost:8080/actuator/executor/recommendationsExecutor
+ * curl -X POST http://localhost:8080/actuator/executor/recommendationsExecutor \
+ *      -H "Content-Type: application/json" -d '{"corePoolSize":20,"maxPoolSize":60,"queueCapacity":50}'
+ * curl -X POST http://localhost:8080/actuator/executor/recommendationsExecutor \
+ *      -H "Content-Type: application/json" -d '{"autoTuning":true}'
+ * </pre>
+ * 手动指定大小时，如果没有显式传 autoTuning，会暂停该执行器的自动调优，避免被下一轮采样覆盖。
+ * 不存在的执行器返回 404，大小不合法（需要 0 <= core <= max、max > 0、queue > 0）返回 400。
+ */
+@Component
+@Endpoint(id = "executor")
+public class ExecutorEndpoint {
+
+    private final ExecutorAutoTuner autoTuner;
+
+    public ExecutorEndpoint(ExecutorAutoTuner autoTuner) {
+        this.autoTuner = autoTuner;
+    }
+
+    @ReadOperation
+    public Map<String, Object> executors() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        autoTuner.tunableExecutors().forEach((name, executor) -> result.put(name, describe(name, executor)));
+        return result;
+    }
+
+    /**
+     * 返回 null 时 actuator 响应 404
+     */
+    @ReadOperation
+    public Map<String, Object> executor(@Selector String name) {
+        TunableThreadPoolTaskExecutor executor = autoTuner.tunableExecutors().get(name);
+        return executor != null ? describe(name, executor) : null;
+    }
+
+    /**
+     * 写操作返回 null 时 actuator 响应的是 204，所以执行器不存在时显式返回 404
+     */
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> resize(@Selector String name,
+                                                           @Nullable Integer corePoolSize,
+                                                           @Nullable Integer maxPoolSize,
+                                                           @Nullable Integer queueCapacity,
+                                                           @Nullable Boolean autoTuning) {
+        TunableThreadPoolTaskExecutor executor = autoTuner.tunableExecutors().get(name);
+        if (executor == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        boolean sizeChanged = corePoolSize != null || maxPoolSize != null || queueCapacity != null;
+        if (sizeChanged) {
+            try {
+                executor.resize(
+                        corePoolSize != null ? corePoolSize : pool.getCorePoolSize(),
+                        maxPoolSize != null ? maxPoolSize : pool.getMaximumPoolSize(),
+                        queueCapacity != null ? queueCapacity : executor.getQueueCapacity());
+            } catch (IllegalArgumentException e) {
+                throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage(), e);
+            }
+        }
+        if (autoTuning != null) {
+            autoTuner.setAutoTuning(name, autoTuning);
+        } else if (sizeChanged) {
+            autoTuner.setAutoTuning(name, false);
+        }
+        return new WebEndpointResponse<>(describe(name, executor));
+    }
+
+    private Map<String, Object> describe(String name, TunableThreadPoolTaskExecutor executor) {
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("corePoolSize", pool.getCorePoolSize());
+        result.put("maxPoolSize", pool.getMaximumPoolSize());
+        result.put("queueCapacity", executor.getQueueCapacity());
+        result.put("poolSize", pool.getPoolSize());
+        result.put("activeCount", pool.getActiveCount());
+        result.put("queueSize", pool.getQueue().size());
+        result.put("completedTaskCount", pool.getCompletedTaskCount());
+        result.put("autoTuning", autoTuner.isAutoTuning(name));
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package org.dododo.executor;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 容量可以在运行时调整的 LinkedBlockingQueue
+ * <p>
+ * JDK 的 LinkedBlockingQueue 容量在构造时固定；这里用无界队列作为底层，在 offer 时按 volatile capacity 判断是否已满。
+ * size 判断和入队不是原子的，并发入队时可能短暂超出 capacity 几个元素，对线程池的排队控制来说可以接受。
+ * <p>
+ * ThreadPoolExecutor 只使用 offer，put 保持无界语义，不要把该队列用在依赖 put 阻塞的场景。
+ */
+public class ResizableCapacityLinkedBlockingQueue<E> extends LinkedBlockingQueue<E> {
+
+    private volatile int capacity;
+
+    public ResizableCapacityLinkedBlockingQueue(int capacity) {
+        super();
+        setCapacity(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 调小容量不会丢弃已经在队列中的任务，只是在队列降到新容量以下之前拒绝新的入队
+     */
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (size() >= capacity) {
+            return false;
+        }
+        return super.offer(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (size() >= capacity) {
+            return false;
+        }
+        return super.offer(e, timeout, unit);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+}
@@ -0,0 +1,57 @@
+package org.dododo.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录每个 @Async 任务的排队等待时间和执行时间，按执行器和方法名打标签
+ * <ul>
+ *   <li>async.task.queue.wait：提交 -> 开始执行（包括在队列中等待、virtual 模式下等待并发许可）</li>
+ *   <li>async.task.execution：开始执行 -> 执行结束</li>
+ * </ul>
+ * 两者对比即可判断 dashboard 变慢是因为排队还是因为任务本身
+ */
+public class TimingTaskDecorator implements TaskDecorator {
+
+    private final String executorName;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> queueWaitTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> executionTimers = new ConcurrentHashMap<>();
+
+    public TimingTaskDecorator(String executorName, MeterRegistry meterRegistry) {
+        this.executorName = executorName;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        long submittedAt = System.nanoTime();
+        return () -> {
+            long startedAt = System.nanoTime();
+            try {
+                runnable.run();
+            } finally {
+                long finishedAt = System.nanoTime();
+                String method = AsyncTaskTag.remove();
+                queueWaitTimers.computeIfAbsent(method, m -> timer("async.task.queue.wait", "任务排队等待时间", m))
+                        .record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                executionTimers.computeIfAbsent(method, m -> timer("async.task.execution", "任务执行时间", m))
+                        .record(finishedAt - startedAt, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private Timer timer(String name, String description, String method) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("executor", executorName)
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,46 @@
+package org.dododo.executor;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 支持在运行时同时调整 core / max / queue 容量的 ThreadPoolTaskExecutor
+ * <p>
+ * core / max 可以直接调用 ThreadPoolExecutor 修改；队列容量则通过 {@link ResizableCapacityLinkedBlockingQueue} 实现。
+ */
+public class TunableThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
+
+    private ResizableCapacityLinkedBlockingQueue<Runnable> queue;
+
+    @Override
+    protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+        this.queue = new ResizableCapacityLinkedBlockingQueue<>(queueCapacity);
+        return this.queue;
+    }
+
+    public int getQueueCapacity() {
+        return queue.getCapacity();
+    }
+
+    /**
+     * 调整线程池大小
+     * <p>
+     * ThreadPoolExecutor 要求任何时刻 core <= max，所以扩容时先改 max，缩容时先改 core
+     */
+    public synchronized void resize(int corePoolSize, int maxPoolSize, int queueCapacity) {
+        if (corePoolSize < 0 || maxPoolSize <= 0 || corePoolSize > maxPoolSize || queueCapacity <= 0) {
+            throw new IllegalArgumentException("require 0 <= core <= max, max > 0, queue > 0");
+        }
+        ThreadPoolExecutor executor = getThreadPoolExecutor();
+        if (corePoolSize > executor.getMaximumPoolSize()) {
+            setMaxPoolSize(maxPoolSize);
+            setCorePoolSize(corePoolSize);
+        } else {
+            setCorePoolSize(corePoolSize);
+            setMaxPoolSize(maxPoolSize);
+        }
+        queue.setCapacity(queueCapacity);
+    }
+}
@@ -0,0 +1,138 @@
+package org.dododo.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake 风格的 64 位 ID 生成器，无锁
+ *
+ * <pre>
+ * 0 | 41 位毫秒时间戳（相对 EPOCH，约 69 年） | 10 位节点 ID | 12 位毫秒内序号
+ * </pre>
+ *
+ * <ul>
+ *   <li><b>无锁</b>：（时间戳, 序号）打包在一个 AtomicLong 里，通过 CAS 推进，竞争时失败方重试，不会阻塞</li>
+ *   <li><b>同一毫秒</b>：序号递增，每毫秒每节点最多 4096 个；用完后自旋等到下一毫秒</li>
+ *   <li><b>时钟回拨</b>：回拨不超过 maxBackwardMs 时继续沿用上次的时间戳（逻辑时钟）发号，序号用完就等时钟追上；
+ *       超过则抛出 {@link IllegalStateException}，宁可失败也不发重复 ID</li>
+ * </ul>
+ *
+ * 同一节点内生成的 ID 单调递增；不同节点只要 nodeId 不同就不会冲突。
+ */
+public class SnowflakeIdGenerator {
+
+    // 2024-01-01T00:00:00Z
+    public static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // 0-9A-Za-z 按 ASCII 有序，定长编码后字符串顺序与数值顺序一致
+    private static final char[] BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    // 2^63 - 1 的 62 进制是 11 位
+    public static final int ENCODED_LENGTH = 11;
+
+    private final long nodeBits;
+    private final long maxBackwardMs;
+    private final LongSupplier clock;
+    // 高位：相对 EPOCH 的毫秒时间戳；低 12 位：序号
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId, long maxBackwardMs) {
+        this(nodeId, maxBackwardMs, System::currentTimeMillis);
+    }
+
+    // 测试用：注入毫秒时钟，模拟时钟回拨
+    SnowflakeIdGenerator(long nodeId, long maxBackwardMs, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+        this.maxBackwardMs = maxBackwardMs;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        while (true) {
+            // 先读状态再读时钟：反过来的话，读完时钟后被挂起的线程会把别的线程推进的状态误判为时钟回拨
+            long last = state.get();
+            long now = clock.getAsLong() - EPOCH;
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                if (lastTimestamp - now > maxBackwardMs) {
+                    throw new IllegalStateException("Clock moved backwards by " + (lastTimestamp - now) + "ms");
+                }
+                if ((last & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                    // 这一毫秒的序号已用完（或时钟回拨后还没追上），等时钟前进
+                    Thread.onSpinWait();
+                    continue;
+                }
+                next = last + 1;
+            }
+            if (state.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 定长 11 位 base62 编码
+     */
+    public static String encode(long id) {
+        return encode("", id);
+    }
+
+    /**
+     * 带前缀的定长 base62 编码，前缀和编码写进同一个 char 数组，只创建一次 String
+     */
+    public static String encode(String prefix, long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("id must not be negative: " + id);
+        }
+        int prefixLength = prefix.length();
+        char[] chars = new char[prefixLength + ENCODED_LENGTH];
+        prefix.getChars(0, prefixLength, chars, 0);
+        for (int i = chars.length - 1; i >= prefixLength; i--) {
+            chars[i] = BASE62[(int) (id % 62)];
+            id /= 62;
+        }
+        return new String(chars);
+    }
+
+    public static long decode(String encoded) {
+        if (encoded.length() != ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Encoded id must be " + ENCODED_LENGTH + " characters: " + encoded);
+        }
+        long id = 0;
+        for (int i = 0; i < ENCODED_LENGTH; i++) {
+            char c = encoded.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'A' && c <= 'Z') {
+                digit = c - 'A' + 10;
+            } else if (c >= 'a' && c <= 'z') {
+                digit = c - 'a' + 36;
+            } else {
+                throw new IllegalArgumentException("Invalid character '" + c + "' in encoded id: " + encoded);
+            }
+            id = id * 62 + digit;
+        }
+        return id;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    public static long nodeIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
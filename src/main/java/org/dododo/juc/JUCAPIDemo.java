@@ -97,16 +97,23 @@ public class JUCAPIDemo {
 
         public static class SumTask extends RecursiveTask<Long> {
 
-            // 阈值：每个任务最多计算多少个数（决定了拆分的粒度）
+            // 默认阈值：每个任务最多计算多少个数（决定了拆分的粒度）
             // 只要任务量大于这个值，就继续拆分
             private static final long THRESHOLD = 10000;
 
             private final long start;
             private final long end;
+            private final long threshold;
 
             public SumTask(long start, long end) {
+                this(start, end, THRESHOLD);
+            }
+
+            // 阈值太小：任务数暴增，fork/join 的调度开销超过计算本身；太大：任务数不够，线程吃不满
+            public SumTask(long start, long end, long threshold) {
                 this.start = start;
                 this.end = end;
+                this.threshold = threshold;
             }
 
             @Override
@@ -114,7 +121,7 @@ public class JUCAPIDemo {
                 long length = end - start;
 
                 // 1. 基准情况：任务足够小，直接计算，不再拆分
-                if (length <= THRESHOLD) {
+                if (length <= threshold) {
                     long sum = 0;
                     for (long i = start; i <= end; i++) {
                         sum += i;
@@ -126,17 +133,16 @@ public class JUCAPIDemo {
                 else {
                     long middle = (start + end) / 2;
 
-                    SumTask leftTask = new SumTask(start, middle);
-                    SumTask rightTask = new SumTask(middle + 1, end);
+                    SumTask leftTask = new SumTask(start, middle, threshold);
+                    SumTask rightTask = new SumTask(middle + 1, end, threshold);
 
-                    // 执行子任务（Fork）
-                    // 注意：通常的做法是 fork() 一个，当前线程 compute() 另一个，以减少线程开销
-                    // 或者两个都 fork，然后 join
-                    leftTask.fork();  // 异步执行 leftTask
-                    rightTask.fork(); // 异步执行 rightTask
+                    // 执行子任务（Fork）：只 fork 右半边，当前线程直接 compute 左半边
+                    // 两个都 fork 再 join 会多一次入队，当前线程也只能在 join 上等着
+                    rightTask.fork(); // 异步执行 rightTask，空闲线程可以窃取
+                    long leftResult = leftTask.compute();
 
                     // 等待结果并合并（Join）
-                    return leftTask.join() + rightTask.join();
+                    return leftResult + rightTask.join();
                 }
             }
         }
@@ -61,7 +61,7 @@ public class StandardLockDemo {
         @Override public String toString() { return name; }
     }
 
-    // 2. 连接池类
+    // 2. 连接池类（演示用：每次借还都要抢同一把全局锁；业务代码请使用 org.dododo.pool.ObjectPool）
     static class MiniPool {
         private final LinkedList<MockConnection> pool = new LinkedList<>();
         private final int maxParams;
@@ -131,8 +131,10 @@ public class StandardLockDemo {
                pool.addLast(conn);
                // 归还后池子“非空”，唤醒一个等待取连接的线程
                notEmpty.signal();
-           } catch (Exception e) {
-
+           } catch (InterruptedException e) {
+               // 等空位时被中断：恢复中断标记，让调用方感知；这个连接没有放回池子，需要记录下来
+               Thread.currentThread().interrupt();
+               log.warn("{} 归还连接时被中断，连接 {} 未归还", threadName, conn);
            } finally {
                lock.unlock();
            }
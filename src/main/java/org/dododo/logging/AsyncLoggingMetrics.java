@@ -0,0 +1,37 @@
+package org.dododo.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.dododo.concurrent.MpmcRingBuffer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link RingBufferAsyncAppender} 的指标：logging.async.events{result=dropped|discarded}、logging.async.queue.size
+ * <p>
+ * 未启用 async-logging profile 时这些指标恒为 0。
+ */
+@Component
+public class AsyncLoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("logging.async.events", RingBufferAsyncAppender.DROPPED, LongAdder::sum)
+                .description("异步日志被丢弃的条数（dropped: 队列已满；discarded: 队列接近满时丢弃的 INFO 及以下）")
+                .tag("result", "dropped")
+                .register(registry);
+        FunctionCounter.builder("logging.async.events", RingBufferAsyncAppender.DISCARDED, LongAdder::sum)
+                .description("异步日志被丢弃的条数（dropped: 队列已满；discarded: 队列接近满时丢弃的 INFO 及以下）")
+                .tag("result", "discarded")
+                .register(registry);
+        Gauge.builder("logging.async.queue.size", () -> {
+                    MpmcRingBuffer<?> buffer = RingBufferAsyncAppender.activeBuffer;
+                    return buffer == null ? 0 : buffer.size();
+                })
+                .description("异步日志队列中等待输出的日志数")
+                .register(registry);
+    }
+}
@@ -0,0 +1,48 @@
+package org.dododo.logging;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个日志调用点的限流：每秒最多放行 maxPerSecond 条，其余的只计数（logging.sampled.suppressed{site}）
+ * <pre>
+ * if (log.isInfoEnabled() && orderCreatedLog.tryAcquire()) {
+ *     log.info("订单创建成功: ...");
+ * }
+ * </pre>
+ * 先检查日志级别：级别关闭的日志不应占用配额，也不应计入 suppressed。
+ * 无锁；秒边界处的并发可能多放行几条，对日志采样来说可以接受。
+ */
+public class LogSampler {
+
+    private final int maxPerSecond;
+    private final Counter suppressedCounter;
+    private final AtomicLong currentSecond = new AtomicLong();
+    private final AtomicInteger countInSecond = new AtomicInteger();
+
+    LogSampler(int maxPerSecond, Counter suppressedCounter) {
+        this.maxPerSecond = maxPerSecond;
+        this.suppressedCounter = suppressedCounter;
+    }
+
+    /**
+     * @return true 表示这一条应该输出
+     */
+    public boolean tryAcquire() {
+        if (maxPerSecond <= 0) {
+            return true;
+        }
+        long second = System.nanoTime() / 1_000_000_000L;
+        long current = currentSecond.get();
+        if (second != current && currentSecond.compareAndSet(current, second)) {
+            countInSecond.set(0);
+        }
+        if (countInSecond.incrementAndGet() <= maxPerSecond) {
+            return true;
+        }
+        suppressedCounter.increment();
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+package org.dododo.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dododo.config.LoggingProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按调用点创建 {@link LogSampler}，每秒上限来自 app.logging.sampling（可按调用点单独配置，0 表示不限流）
+ */
+@Component
+public class LogSamplers {
+
+    private final LoggingProperties.Sampling properties;
+    private final MeterRegistry meterRegistry;
+
+    public LogSamplers(LoggingProperties loggingProperties, MeterRegistry meterRegistry) {
+        this.properties = loggingProperties.getSampling();
+        this.meterRegistry = meterRegistry;
+    }
+
+    public LogSampler sampler(String site) {
+        int maxPerSecond = !properties.isEnabled() ? 0
+                : properties.getSites().getOrDefault(site, properties.getMaxPerSecond());
+        Counter suppressed = Counter.builder("logging.sampled.suppressed")
+                .description("被限流而未输出的日志条数")
+                .tag("site", site)
+                .register(meterRegistry);
+        return new LogSampler(maxPerSecond, suppressed);
+    }
+}
@@ -0,0 +1,186 @@
+package org.dododo.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import org.dododo.concurrent.MpmcRingBuffer;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于 {@link MpmcRingBuffer} 的异步 appender：业务线程只把日志事件放进有界环形队列，由后台线程写到下游 appender
+ *
+ * <ul>
+ *   <li><b>内存有界</b>：队列容量固定（capacity），从不阻塞业务线程</li>
+ *   <li><b>丢弃策略</b>：剩余容量低于 discardThreshold（比例）时丢弃 INFO 及以下级别（计为 discarded）；
+ *       队列满时任何级别都丢弃（计为 dropped）。WARN / ERROR 只会在队列完全满时丢失</li>
+ *   <li>不采集调用者信息（类名 / 方法名 / 行号），pattern 中不要使用 %M / %L / %C</li>
+ *   <li>后台线程空闲时先短暂退避，之后无超时地 park，由入队成功的业务线程 unpark；应用空闲时不会定时唤醒</li>
+ *   <li>停止时最多用 maxFlushTime 把队列中剩余的日志写完</li>
+ * </ul>
+ *
+ * 丢弃计数通过静态计数器暴露，由 {@link AsyncLoggingMetrics} 注册为 logging.async.* 指标（appender 在 Spring 容器之前创建）。
+ */
+public class RingBufferAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    static final LongAdder DROPPED = new LongAdder();
+    static final LongAdder DISCARDED = new LongAdder();
+    static volatile MpmcRingBuffer<ILoggingEvent> activeBuffer;
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private int capacity = 8192;
+    private double discardThreshold = 0.2;
+    private long maxFlushTime = 1000;
+
+    private MpmcRingBuffer<ILoggingEvent> buffer;
+    private int discardBelowRemaining;
+    private Thread worker;
+    // 后台线程已经（或即将）无超时地 park，append 入队成功后需要 unpark
+    private volatile boolean workerParked;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            addError("No attached appenders found for [" + getName() + "]");
+            return;
+        }
+        buffer = new MpmcRingBuffer<>(capacity);
+        discardBelowRemaining = (int) (buffer.capacity() * discardThreshold);
+        activeBuffer = buffer;
+        worker = new Thread(this::drain, "async-log-" + getName());
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        LockSupport.unpark(worker);
+        try {
+            worker.join(maxFlushTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            addWarn("Max flush time (" + maxFlushTime + "ms) exceeded, " + buffer.size() + " events may be lost");
+        }
+        if (activeBuffer == buffer) {
+            activeBuffer = null;
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (buffer.capacity() - buffer.size() < discardBelowRemaining && event.getLevel().toInt() <= Level.INFO_INT) {
+            DISCARDED.increment();
+            return;
+        }
+        // 在业务线程上固定消息、MDC 和线程名，后台线程再格式化输出
+        event.prepareForDeferredProcessing();
+        if (!buffer.offer(event)) {
+            DROPPED.increment();
+            return;
+        }
+        // 后台线程没有 park 时只有一次 volatile 读
+        if (workerParked) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void drain() {
+        long parkNanos = 1_000;
+        while (isStarted() || buffer.size() > 0) {
+            ILoggingEvent event = buffer.poll();
+            if (event == null) {
+                if (!isStarted()) {
+                    break;
+                }
+                if (parkNanos < MAX_PARK_NANOS) {
+                    LockSupport.parkNanos(parkNanos);
+                    parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+                } else {
+                    parkUntilSignalled();
+                }
+                continue;
+            }
+            parkNanos = 1_000;
+            appenders.appendLoopOnAppenders(event);
+        }
+    }
+
+    /**
+     * 先登记再检查队列：与 append 的 "先入队再检查 workerParked" 配对，两边至少有一方能看到对方，不会错过唤醒。
+     * 被唤醒（或提前拿到 unpark 许可、虚假唤醒、stop）后回到 drain 重新 poll。
+     */
+    private void parkUntilSignalled() {
+        workerParked = true;
+        if (isStarted() && buffer.size() == 0) {
+            LockSupport.park(this);
+        }
+        workerParked = false;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void setDiscardThreshold(double discardThreshold) {
+        this.discardThreshold = discardThreshold;
+    }
+
+    public void setMaxFlushTime(long maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
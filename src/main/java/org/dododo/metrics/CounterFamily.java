@@ -0,0 +1,132 @@
+package org.dododo.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * 同名、同一组标签 key 的一组 Counter，按标签值缓存（支持 1 个或 2 个标签）
+ *
+ * <ul>
+ *   <li><b>快速路径</b>：已注册过的标签值直接从 ConcurrentHashMap 取出 Counter，不创建 Tag 数组、不查 MeterRegistry，无内存分配</li>
+ *   <li><b>基数上限</b>：同一个指标最多注册 maxSeries 个时间序列，超出后所有新标签值都记到标签值为 {@value #OTHER} 的序列上，
+ *       并记录 metrics.cardinality.overflow{name}；溢出的标签值不会被缓存，内存不会随用户输入增长。
+ *       达到上限后新标签值不再进入 synchronized 慢路径，大量随机标签值也不会让请求线程在同一把锁上排队</li>
+ * </ul>
+ *
+ * 可传入 decorator 对新注册的 Counter 再包装一层，例如 {@link MetricsAggregator#stripe} 做本地预聚合。
+ */
+public class CounterFamily {
+
+    public static final String OTHER = "other";
+
+    private final String name;
+    private final String description;
+    private final String[] tagKeys;
+    private final int maxSeries;
+    private final MeterRegistry meterRegistry;
+    private final UnaryOperator<Counter> decorator;
+
+    // 1 个标签：value -> Counter；2 个标签：value1 -> (value2 -> Counter)
+    private final Map<String, Counter> single = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Counter>> pairs = new ConcurrentHashMap<>();
+
+    // 以下字段只在 synchronized 的慢路径中修改
+    private int seriesCount;
+    // 达到上限后才创建；非 null 即表示已满，快速路径据此跳过加锁
+    private volatile Counter otherCounter;
+    private final Counter overflowCounter;
+
+    public CounterFamily(String name, String description, int maxSeries, MeterRegistry meterRegistry, String... tagKeys) {
+        this(name, description, maxSeries, meterRegistry, UnaryOperator.identity(), tagKeys);
+    }
+
+    public CounterFamily(String name, String description, int maxSeries, MeterRegistry meterRegistry,
+                         UnaryOperator<Counter> decorator, String... tagKeys) {
+        if (tagKeys.length < 1 || tagKeys.length > 2) {
+            throw new IllegalArgumentException("CounterFamily supports 1 or 2 tag keys");
+        }
+        this.name = name;
+        this.description = description;
+        this.tagKeys = tagKeys;
+        this.maxSeries = maxSeries;
+        this.meterRegistry = meterRegistry;
+        this.decorator = decorator;
+        this.overflowCounter = Counter.builder("metrics.cardinality.overflow")
+                .description("超过标签基数上限、被归入 other 的记录次数")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Counter counter(String value) {
+        Counter counter = single.get(value);
+        return counter != null ? counter : overflowOrRegister(value, null);
+    }
+
+    public Counter counter(String value1, String value2) {
+        Map<String, Counter> inner = pairs.get(value1);
+        if (inner != null) {
+            Counter counter = inner.get(value2);
+            if (counter != null) {
+                return counter;
+            }
+        }
+        return overflowOrRegister(value1, value2);
+    }
+
+    private Counter overflowOrRegister(String value1, String value2) {
+        if ((value2 == null) != (tagKeys.length == 1)) {
+            throw new IllegalArgumentException(name + " expects " + tagKeys.length + " tag value(s)");
+        }
+        Counter other = otherCounter;
+        if (other != null) {
+            // 已满：已注册的标签值在快速路径中就返回了，走到这里的都是新值
+            overflowCounter.increment();
+            return other;
+        }
+        return register(value1, value2);
+    }
+
+    private synchronized Counter register(String value1, String value2) {
+        // 双重检查：可能在等锁期间已被其他线程注册
+        Counter existing = value2 == null ? single.get(value1)
+                : pairs.getOrDefault(value1, Map.of()).get(value2);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (seriesCount >= maxSeries) {
+            overflowCounter.increment();
+            if (otherCounter == null) {
+                otherCounter = value2 == null ? build(OTHER, null) : build(OTHER, OTHER);
+            }
+            return otherCounter;
+        }
+
+        Counter counter = build(value1, value2);
+        if (value2 == null) {
+            single.put(value1, counter);
+        } else {
+            pairs.computeIfAbsent(value1, k -> new ConcurrentHashMap<>()).put(value2, counter);
+        }
+        seriesCount++;
+        return counter;
+    }
+
+    private Counter build(String value1, String value2) {
+        Counter.Builder builder = Counter.builder(name)
+                .description(description)
+                .tag(tagKeys[0], value1);
+        if (value2 != null) {
+            builder.tag(tagKeys[1], value2);
+        }
+        return decorator.apply(builder.register(meterRegistry));
+    }
+}
@@ -0,0 +1,58 @@
+package org.dododo.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * 指标名本身由调用方传入时使用：按指标名缓存 {@link CounterFamily}
+ * <p>
+ * 指标名数量同样有上限，超出后记到 overflowName 这一个指标上（标签基数上限仍然生效）。
+ */
+public class DynamicCounterFamilies {
+
+    private final String tagKey;
+    private final int maxNames;
+    private final int maxSeriesPerName;
+    private final MeterRegistry meterRegistry;
+    private final UnaryOperator<Counter> decorator;
+    private final Map<String, CounterFamily> families = new ConcurrentHashMap<>();
+    private final CounterFamily overflowFamily;
+
+    public DynamicCounterFamilies(String tagKey, int maxNames, int maxSeriesPerName,
+                                  String overflowName, MeterRegistry meterRegistry) {
+        this(tagKey, maxNames, maxSeriesPerName, overflowName, meterRegistry, UnaryOperator.identity());
+    }
+
+    public DynamicCounterFamilies(String tagKey, int maxNames, int maxSeriesPerName,
+                                  String overflowName, MeterRegistry meterRegistry, UnaryOperator<Counter> decorator) {
+        this.tagKey = tagKey;
+        this.maxNames = maxNames;
+        this.maxSeriesPerName = maxSeriesPerName;
+        this.meterRegistry = meterRegistry;
+        this.decorator = decorator;
+        this.overflowFamily = new CounterFamily(overflowName, "超过指标名数量上限的业务指标",
+                maxSeriesPerName, meterRegistry, decorator, tagKey);
+    }
+
+    public CounterFamily family(String name) {
+        CounterFamily family = families.get(name);
+        return family != null ? family : register(name);
+    }
+
+    private synchronized CounterFamily register(String name) {
+        CounterFamily family = families.get(name);
+        if (family != null) {
+            return family;
+        }
+        if (families.size() >= maxNames) {
+            return overflowFamily;
+        }
+        family = new CounterFamily(name, "业务指标", maxSeriesPerName, meterRegistry, decorator, tagKey);
+        families.put(name, family);
+        return family;
+    }
+}
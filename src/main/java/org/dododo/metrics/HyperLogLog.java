@@ -0,0 +1,118 @@
+package org.dododo.metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * HyperLogLog 基数估计：2^precision 个 1 字节寄存器，内存固定，与去重元素的数量无关
+ *
+ * <ul>
+ *   <li>标准误差约 1.04 / sqrt(2^precision)，precision = 12 时 4KB、约 1.6%</li>
+ *   <li>{@link #add} 通过 CAS 只增大寄存器，可多线程并发调用，无锁</li>
+ *   <li>多个 sketch 可以按寄存器取最大值合并（{@link #mergeInto}），用于滑动窗口</li>
+ * </ul>
+ */
+public class HyperLogLog {
+
+    private static final VarHandle REGISTERS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(String value) {
+        addHash(hash(value));
+    }
+
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // 剩余位中第一个 1 的位置（从 1 开始）；末尾补 1 保证不会超过 64 - precision + 1
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        byte current = (byte) REGISTERS.getVolatile(registers, index);
+        while (rank > current) {
+            byte witness = (byte) REGISTERS.compareAndExchange(registers, index, current, rank);
+            if (witness == current) {
+                return;
+            }
+            current = witness;
+        }
+    }
+
+    public long estimate() {
+        return estimate(registers);
+    }
+
+    /**
+     * 按寄存器取最大值合并到 target（长度必须相同）
+     */
+    public void mergeInto(byte[] target) {
+        for (int i = 0; i < registers.length; i++) {
+            byte value = (byte) REGISTERS.getVolatile(registers, i);
+            if (value > target[i]) {
+                target[i] = value;
+            }
+        }
+    }
+
+    public int registerCount() {
+        return registers.length;
+    }
+
+    /**
+     * 清零，与并发的 add 不是原子的，用于窗口轮换
+     */
+    public void reset() {
+        for (int i = 0; i < registers.length; i++) {
+            REGISTERS.setVolatile(registers, i, (byte) 0);
+        }
+    }
+
+    static long estimate(byte[] registers) {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+        double estimate = alpha * m * m / sum;
+        // 小基数时用线性计数修正
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 64 位哈希：FNV-1a 逐字符累积，再用 MurmurHash3 的 fmix64 打散
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
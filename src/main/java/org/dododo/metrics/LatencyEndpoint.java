@@ -0,0 +1,51 @@
+package org.dododo.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 进程内滑动窗口的延迟分位数（毫秒）
+ * <pre>
+ * curl http://localhost:8080/actuator/latency
+ * curl http://localhost:8080/actuator/latency/business.payment.duration
+ * </pre>
+ * 不存在的窗口返回 404。
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+    private final LatencyWindows latencyWindows;
+
+    public LatencyEndpoint(LatencyWindows latencyWindows) {
+        this.latencyWindows = latencyWindows;
+    }
+
+    @ReadOperation
+    public Map<String, Object> windows() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        latencyWindows.all().forEach((name, window) -> result.put(name, describe(window)));
+        return result;
+    }
+
+    /**
+     * 返回 null 时 actuator 响应 404
+     */
+    @ReadOperation
+    public Map<String, Object> window(@Selector String name) {
+        SlidingWindowHistogram window = latencyWindows.get(name);
+        return window != null ? describe(window) : null;
+    }
+
+    private static Map<String, Object> describe(SlidingWindowHistogram window) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("windowSeconds", window.getWindow().toSeconds());
+        result.putAll(window.snapshot().toMillisMap());
+        return result;
+    }
+}
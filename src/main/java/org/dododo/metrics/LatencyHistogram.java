@@ -0,0 +1,192 @@
+package org.dododo.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR 风格的对数-线性延迟直方图（单位：微秒），内存固定、记录无锁
+ *
+ * <ul>
+ *   <li>每个 2 的幂区间再线性切成 {@value #SUB_BUCKETS} 个桶，相对误差不超过 1/{@value #SUB_BUCKETS}（约 0.8%）</li>
+ *   <li>小于 {@value #SUB_BUCKETS}µs 的值每微秒一个桶，精确记录</li>
+ *   <li>超过 highestTrackableMicros 的值记到最后一个桶（max 仍然记录真实值）</li>
+ *   <li>{@link #record} 只有几次原子自增，可在热路径上并发调用；{@link #snapshot()} 复制一份计数后再计算分位数</li>
+ * </ul>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long highestTrackableMicros;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public LatencyHistogram() {
+        this(TimeUnit.MINUTES.toMicros(10));
+    }
+
+    public LatencyHistogram(long highestTrackableMicros) {
+        this.highestTrackableMicros = Math.max(highestTrackableMicros, SUB_BUCKETS);
+        this.counts = new AtomicLongArray(indexOf(this.highestTrackableMicros) + 1);
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = msb - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) (micros >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * 桶对应取值范围的中点
+     */
+    static long valueOf(int index) {
+        if (index < SUB_BUCKETS * 2) {
+            // 前两个区间每个桶宽度为 1
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = (index & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+        long lower = subBucket << shift;
+        return lower + ((1L << shift) >>> 1);
+    }
+
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(Math.min(value, highestTrackableMicros)));
+        totalCount.incrementAndGet();
+        totalMicros.addAndGet(value);
+        maxMicros.accumulateAndGet(value, Math::max);
+    }
+
+    public void recordNanos(long nanos) {
+        record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[counts.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, totalMicros.get(), maxMicros.get());
+    }
+
+    /**
+     * 把另一个直方图的当前计数累加进来（两者 highestTrackableMicros 必须相同）
+     */
+    public void add(LatencyHistogram other) {
+        if (other.counts.length() != counts.length()) {
+            throw new IllegalArgumentException("histograms must have the same highestTrackableMicros");
+        }
+        long added = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+                added += count;
+            }
+        }
+        totalCount.addAndGet(added);
+        totalMicros.addAndGet(other.totalMicros.get());
+        maxMicros.accumulateAndGet(other.maxMicros.get(), Math::max);
+    }
+
+    /**
+     * 清零。与并发的 record 之间不是原子的，期间记录的少量值可能只被部分清掉，适合统计窗口轮换这类场景
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    /**
+     * 某一时刻的计数副本
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+
+        Snapshot(long[] counts, long totalMicros, long maxMicros) {
+            this.counts = counts;
+            long sum = 0;
+            for (long c : counts) {
+                sum += c;
+            }
+            this.count = sum;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMicros() {
+            return count == 0 ? 0 : (double) totalMicros / count;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        /**
+         * @param quantile 0 ~ 1，例如 0.99
+         */
+        public long valueAtQuantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    // 分位数不超过真实最大值
+                    return Math.min(valueOf(i), maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+
+        /**
+         * 常用分位数（毫秒），用于接口输出
+         */
+        public Map<String, Object> toMillisMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("count", count);
+            result.put("mean", round(getMeanMicros() / 1000.0));
+            result.put("p50", millis(valueAtQuantile(0.5)));
+            result.put("p90", millis(valueAtQuantile(0.9)));
+            result.put("p99", millis(valueAtQuantile(0.99)));
+            result.put("p999", millis(valueAtQuantile(0.999)));
+            result.put("max", millis(maxMicros));
+            return result;
+        }
+
+        private static double millis(long micros) {
+            return round(micros / 1000.0);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 1000) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.dododo.metrics;
+
+import org.dododo.config.MetricsProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按名称管理 {@link SlidingWindowHistogram}，供 /actuator/latency 在进程内直接查询最近一段时间的分位数，
+ * 不依赖 Prometheus 抓取和 histogram_quantile
+ */
+@Component
+public class LatencyWindows {
+
+    private final MetricsProperties.LatencyWindow properties;
+    private final Map<String, SlidingWindowHistogram> windows = new ConcurrentHashMap<>();
+
+    public LatencyWindows(MetricsProperties metricsProperties) {
+        this.properties = metricsProperties.getLatencyWindow();
+    }
+
+    /**
+     * 获取或创建指定名称的滑动窗口，名称通常与对应的 Timer 相同
+     */
+    public SlidingWindowHistogram window(String name) {
+        return windows.computeIfAbsent(name,
+                k -> new SlidingWindowHistogram(properties.getWindow(), properties.getSlices()));
+    }
+
+    public Map<String, SlidingWindowHistogram> all() {
+        return new TreeMap<>(windows);
+    }
+
+    public SlidingWindowHistogram get(String name) {
+        return windows.get(name);
+    }
+}
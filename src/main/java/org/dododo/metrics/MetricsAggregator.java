@@ -0,0 +1,43 @@
+package org.dododo.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 管理所有 {@link StripedCounter}，定期把本地聚合的增量 flush 到 MeterRegistry
+ * <p>
+ * 除了定时 flush，抓取指标前（/actuator/prometheus、/actuator/metrics）也会 flush 一次，见 MetricsConfig，
+ * 因此 Prometheus 看到的值不会落后一个 flush 周期；应用关闭前再 flush 一次。
+ */
+@Component
+public class MetricsAggregator {
+
+    // 只在注册新 Counter 时写入（数量受基数上限约束），flush 时遍历无锁
+    private final List<StripedCounter> counters = new CopyOnWriteArrayList<>();
+
+    /**
+     * 用本地预聚合包装一个已注册的 Counter
+     */
+    public Counter stripe(Counter target) {
+        StripedCounter striped = new StripedCounter(target);
+        counters.add(striped);
+        return striped;
+    }
+
+    @Scheduled(fixedDelayString = "${app.metrics.aggregation.flush-interval-ms:1000}")
+    public void flush() {
+        for (StripedCounter counter : counters) {
+            counter.flush();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,65 @@
+package org.dododo.metrics;
+
+import java.time.Duration;
+
+/**
+ * 滑动时间窗口内的去重计数：窗口切成 slices 个时间片，每个时间片一个 {@link HyperLogLog}，环形复用
+ * <p>
+ * 查询时按寄存器取最大值合并仍在窗口内的时间片，得到整个窗口的去重数；内存为 slices × 2^precision 字节，固定不变。
+ */
+public class SlidingWindowDistinctCounter {
+
+    private final long sliceMillis;
+    private final int precision;
+    private final Slice[] slices;
+
+    public SlidingWindowDistinctCounter(Duration window, int sliceCount, int precision) {
+        if (sliceCount < 1 || window.toMillis() < sliceCount) {
+            throw new IllegalArgumentException("window must be at least sliceCount milliseconds");
+        }
+        this.sliceMillis = window.toMillis() / sliceCount;
+        this.precision = precision;
+        this.slices = new Slice[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new Slice(precision);
+        }
+    }
+
+    public void add(String value) {
+        addHash(HyperLogLog.hash(value));
+    }
+
+    public void addHash(long hash) {
+        long epoch = System.currentTimeMillis() / sliceMillis;
+        Slice slice = slices[(int) (epoch % slices.length)];
+        if (slice.epoch != epoch) {
+            synchronized (slice) {
+                if (slice.epoch != epoch) {
+                    slice.sketch.reset();
+                    slice.epoch = epoch;
+                }
+            }
+        }
+        slice.sketch.addHash(hash);
+    }
+
+    public long estimate() {
+        long oldestEpoch = System.currentTimeMillis() / sliceMillis - slices.length + 1;
+        byte[] merged = new byte[1 << precision];
+        for (Slice slice : slices) {
+            if (slice.epoch >= oldestEpoch) {
+                slice.sketch.mergeInto(merged);
+            }
+        }
+        return HyperLogLog.estimate(merged);
+    }
+
+    private static class Slice {
+        private final HyperLogLog sketch;
+        private volatile long epoch = -1;
+
+        Slice(int precision) {
+            this.sketch = new HyperLogLog(precision);
+        }
+    }
+}
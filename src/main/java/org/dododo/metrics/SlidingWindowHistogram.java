@@ -0,0 +1,67 @@
+package org.dododo.metrics;
+
+import java.time.Duration;
+
+/**
+ * 滑动时间窗口内的延迟分布：窗口切成 slices 个时间片，每个时间片一个 {@link LatencyHistogram}，环形复用
+ * <p>
+ * 记录时写入当前时间片（时间片过期时先清零再复用）；查询时合并仍在窗口内的时间片。
+ * 窗口按时间片粒度滑动，例如 60s / 6 片时，统计的是最近 50 ~ 60 秒的数据。
+ */
+public class SlidingWindowHistogram {
+
+    private final long sliceMillis;
+    private final Slice[] slices;
+
+    public SlidingWindowHistogram(Duration window, int sliceCount) {
+        if (sliceCount < 1 || window.toMillis() < sliceCount) {
+            throw new IllegalArgumentException("window must be at least sliceCount milliseconds");
+        }
+        this.sliceMillis = window.toMillis() / sliceCount;
+        this.slices = new Slice[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new Slice();
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        currentSlice().histogram.recordNanos(nanos);
+    }
+
+    private Slice currentSlice() {
+        long epoch = System.currentTimeMillis() / sliceMillis;
+        Slice slice = slices[(int) (epoch % slices.length)];
+        if (slice.epoch != epoch) {
+            synchronized (slice) {
+                if (slice.epoch != epoch) {
+                    slice.histogram.reset();
+                    slice.epoch = epoch;
+                }
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * 合并窗口内所有时间片
+     */
+    public LatencyHistogram.Snapshot snapshot() {
+        long oldestEpoch = System.currentTimeMillis() / sliceMillis - slices.length + 1;
+        LatencyHistogram merged = new LatencyHistogram();
+        for (Slice slice : slices) {
+            if (slice.epoch >= oldestEpoch) {
+                merged.add(slice.histogram);
+            }
+        }
+        return merged.snapshot();
+    }
+
+    public Duration getWindow() {
+        return Duration.ofMillis(sliceMillis * slices.length);
+    }
+
+    private static class Slice {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private volatile long epoch = -1;
+    }
+}
@@ -0,0 +1,54 @@
+package org.dododo.metrics;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地预聚合的 Counter：increment 只写入分段的 LongAdder / DoubleAdder（竞争时每个线程落到不同的 cell），
+ * 由 {@link MetricsAggregator} 定期（以及每次抓取前）把增量一次性写入真正注册在 MeterRegistry 里的 Counter
+ * <p>
+ * {@link #count()} 返回已写入的值加上尚未 flush 的增量，读到的总是最新值。
+ */
+public class StripedCounter implements Counter {
+
+    private final Counter target;
+    // increment() 走 LongAdder，整数累加没有精度问题；increment(amount) 走 DoubleAdder
+    private final LongAdder pendingCount = new LongAdder();
+    private final DoubleAdder pendingAmount = new DoubleAdder();
+
+    StripedCounter(Counter target) {
+        this.target = target;
+    }
+
+    @Override
+    public void increment() {
+        pendingCount.increment();
+    }
+
+    @Override
+    public void increment(double amount) {
+        pendingAmount.add(amount);
+    }
+
+    @Override
+    public double count() {
+        return target.count() + pendingCount.sum() + pendingAmount.sum();
+    }
+
+    @Override
+    public Id getId() {
+        return target.getId();
+    }
+
+    /**
+     * 把增量写入目标 Counter。sumThenReset 对每个 cell 是原子的 getAndSet，flush 期间并发写入的增量不会丢，只会留到下一次
+     */
+    void flush() {
+        double delta = pendingCount.sumThenReset() + pendingAmount.sumThenReset();
+        if (delta != 0) {
+            target.increment(delta);
+        }
+    }
+}
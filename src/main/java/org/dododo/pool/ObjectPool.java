@@ -0,0 +1,652 @@
+package org.dododo.pool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 通用对象池（连接、客户端等创建代价高的对象），由 {@code StandardLockDemo.MiniPool} 演化而来
+ *
+ * <p>MiniPool 的每次借还都要抢同一把锁；这里借还都不加锁：
+ * <ul>
+ *   <li>每个对象有自己的状态（NOT_IN_USE / IN_USE / REMOVED），借出 = 对状态做一次 CAS</li>
+ *   <li>线程本地槽位记住本线程上次归还的对象，同一线程反复借还时直接命中，不碰共享结构</li>
+ *   <li>未命中时遍历共享列表找空闲对象；列表只在创建 / 销毁对象时修改（CopyOnWriteArrayList），遍历不加锁</li>
+ *   <li>没有空闲对象且未达到 maxSize 时，在借用线程中直接创建</li>
+ *   <li>已满时在 {@link SynchronousQueue} 上等待，归还线程发现有等待者就把对象直接移交过去，最多等 borrowTimeout，
+ *       超时抛出 {@link PoolTimeoutException}</li>
+ * </ul>
+ *
+ * 空闲超过 validateAfterIdle 的对象借出前先用 {@link PooledObjectFactory#validate} 校验，失败的销毁后重新借；
+ * 后台线程每隔 evictionInterval 销毁空闲超过 idleTimeout 的对象（保留 minIdle 个），并把对象数补足到 minIdle。
+ *
+ * <p>使用方式：{@link #borrow()} 拿到的 {@link Lease} 放进 try-with-resources，保证一定归还；
+ * 对象已损坏（例如连接断开）时调用 {@link Lease#invalidate()}，池会销毁它而不是放回去。
+ *
+ * <p>诊断：{@link #holders()} 列出当前借出的对象、借用线程和占用时长（由 PoolEndpoint 暴露）。
+ * <ul>
+ *   <li>leakDetectionThreshold &gt; 0 时，后台线程每秒检查一次，占用超过阈值的对象记一次 pool.leaks 并打印 WARN，
+ *       每次借用最多报告一次；检查不在借还路径上</li>
+ *   <li>captureStackTraces 开启后每次借用都记录调用栈（取决于栈深度，几到几十微秒），泄漏日志和 holders 中会带上借出位置；
+ *       关闭时借用只多一次线程引用的写入</li>
+ * </ul>
+ * 两者都可以在运行时修改。
+ *
+ * <p>指标（tag pool）：pool.objects{state=active|idle} / pool.max / pool.waiters (Gauge)，
+ * pool.borrow.wait（借用等待时间，含创建）和 pool.usage（借出到归还的时间）(Timer)，
+ * pool.created / pool.timeouts / pool.destroyed{reason} / pool.leaks (Counter)
+ */
+@Slf4j
+public class ObjectPool<T> implements AutoCloseable {
+
+    private static final int NOT_IN_USE = 0;
+    private static final int IN_USE = 1;
+    private static final int REMOVED = -1;
+
+    private static final long LEAK_CHECK_INTERVAL_MS = 1000;
+
+    private enum DestroyReason {
+        // 空闲超时 | 借出前校验失败 | 调用方标记失效 | 池已关闭
+        IDLE, INVALID, INVALIDATED, CLOSED
+    }
+
+    private final String name;
+    private final PooledObjectFactory<T> factory;
+    private final int minIdle;
+    private final int maxSize;
+    private final long borrowTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final long validateAfterIdleNanos;
+
+    // 所有对象（空闲 + 借出），只在创建 / 销毁时修改
+    private final CopyOnWriteArrayList<Entry<T>> entries = new CopyOnWriteArrayList<>();
+    // 已创建 + 正在创建的对象数，创建前先在这里占位，保证不超过 maxSize
+    private final AtomicInteger totalCount = new AtomicInteger(0);
+    private final AtomicInteger waiters = new AtomicInteger(0);
+    private final SynchronousQueue<Entry<T>> handoffQueue = new SynchronousQueue<>(true);
+    private final ThreadLocal<Entry<T>> lastUsed = new ThreadLocal<>();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // 0 表示不做泄漏检测
+    private volatile long leakDetectionThresholdNanos;
+    private volatile boolean captureStackTraces;
+
+    private final Timer waitTimer;
+    private final Timer usageTimer;
+    private final Counter createdCounter;
+    private final Counter timeoutCounter;
+    private final Counter leakCounter;
+    private final Map<DestroyReason, Counter> destroyedCounters = new EnumMap<>(DestroyReason.class);
+
+    public ObjectPool(String name, PooledObjectFactory<T> factory, int minIdle, int maxSize,
+                      Duration borrowTimeout, Duration idleTimeout, Duration validateAfterIdle,
+                      Duration evictionInterval, MeterRegistry meterRegistry) {
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("require 0 <= minIdle <= maxSize and maxSize >= 1");
+        }
+        if (evictionInterval.isZero() || evictionInterval.isNegative()) {
+            throw new IllegalArgumentException("evictionInterval must be positive");
+        }
+        this.name = name;
+        this.factory = factory;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.borrowTimeoutNanos = borrowTimeout.toNanos();
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.validateAfterIdleNanos = validateAfterIdle.toNanos();
+
+        Gauge.builder("pool.objects", this, ObjectPool::getActive)
+                .description("池中对象数")
+                .tag("pool", name)
+                .tag("state", "active")
+                .register(meterRegistry);
+        Gauge.builder("pool.objects", this, ObjectPool::getIdle)
+                .description("池中对象数")
+                .tag("pool", name)
+                .tag("state", "idle")
+                .register(meterRegistry);
+        Gauge.builder("pool.max", this, ObjectPool::getMaxSize)
+                .description("池的最大对象数")
+                .tag("pool", name)
+                .register(meterRegistry);
+        Gauge.builder("pool.waiters", waiters, AtomicInteger::get)
+                .description("正在等待归还对象的借用线程数")
+                .tag("pool", name)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("pool.borrow.wait")
+                .description("借用对象的等待时间（含创建对象）")
+                .tag("pool", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.usageTimer = Timer.builder("pool.usage")
+                .description("对象从借出到归还的时间")
+                .tag("pool", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.createdCounter = Counter.builder("pool.created")
+                .description("创建的对象数")
+                .tag("pool", name)
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("pool.timeouts")
+                .description("借用超时次数")
+                .tag("pool", name)
+                .register(meterRegistry);
+        this.leakCounter = Counter.builder("pool.leaks")
+                .description("占用时间超过 leakDetectionThreshold 的借用次数（疑似泄漏）")
+                .tag("pool", name)
+                .register(meterRegistry);
+        for (DestroyReason reason : DestroyReason.values()) {
+            destroyedCounters.put(reason, Counter.builder("pool.destroyed")
+                    .description("销毁的对象数")
+                    .tag("pool", name)
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "pool-" + name + "-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 首次执行时把对象数补足到 minIdle
+        housekeeper.scheduleWithFixedDelay(this::evictIdle, 0, evictionInterval.toMillis(), TimeUnit.MILLISECONDS);
+        housekeeper.scheduleWithFixedDelay(this::detectLeaks, LEAK_CHECK_INTERVAL_MS, LEAK_CHECK_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 借用一个对象，最多等待 borrowTimeout
+     *
+     * @throws PoolTimeoutException 超时仍没有可用对象
+     */
+    public Lease<T> borrow() throws InterruptedException {
+        return borrow(borrowTimeoutNanos);
+    }
+
+    /**
+     * 借用一个对象，最多等待 timeout；timeout 为 0 时只尝试一次，不等待
+     *
+     * @throws PoolTimeoutException 超时仍没有可用对象
+     */
+    public Lease<T> borrow(Duration timeout) throws InterruptedException {
+        return borrow(timeout.toNanos());
+    }
+
+    private Lease<T> borrow(long timeoutNanos) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("pool [" + name + "] is closed");
+        }
+        long start = System.nanoTime();
+        long deadline = start + timeoutNanos;
+        try {
+            for (;;) {
+                Entry<T> entry = acquire(deadline);
+                if (entry == null) {
+                    timeoutCounter.increment();
+                    throw new PoolTimeoutException(String.format(
+                            "pool [%s] has no object available after %d ms (active=%d, max=%d, waiters=%d)",
+                            name, TimeUnit.NANOSECONDS.toMillis(timeoutNanos), getActive(), maxSize, waiters.get()));
+                }
+                long now = System.nanoTime();
+                if (isValid(entry, now)) {
+                    // 诊断字段用普通写，随后对 borrowedAt 的 volatile 写把它们一起发布出去
+                    entry.holder = Thread.currentThread();
+                    entry.borrowStack = captureStackTraces ? new Throwable("borrowed here") : null;
+                    if (entry.leakReported) {
+                        entry.leakReported = false;
+                    }
+                    entry.borrowedAt = now;
+                    return new Lease<>(this, entry);
+                }
+                discard(entry, DestroyReason.INVALID);
+            }
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 拿到一个状态已置为 IN_USE 的对象；到 deadline 仍没有则返回 null
+     */
+    private Entry<T> acquire(long deadline) throws InterruptedException {
+        // 1. 本线程上次归还的对象
+        Entry<T> local = lastUsed.get();
+        if (local != null && local.state.compareAndSet(NOT_IN_USE, IN_USE)) {
+            return local;
+        }
+
+        for (;;) {
+            // 2. 共享列表中的空闲对象
+            Entry<T> idle = claimIdle();
+            if (idle != null) {
+                return idle;
+            }
+            // 3. 未满则新建
+            Entry<T> created = tryCreate();
+            if (created != null) {
+                return created;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            // 4. 等归还线程移交。只有即将阻塞的线程才算等待者：归还线程看到 waiters > 0 会一直尝试移交，
+            //    如果扫描、创建对象（factory.create 可能很慢）期间也算，归还线程就要陪着空转
+            waiters.incrementAndGet();
+            try {
+                // 登记后再扫描一次、再看一次名额：与归还线程"先置为空闲再看 waiters"、销毁时"先腾出名额再看 waiters"配对，
+                // 不会出现"对象在两次扫描之间被归还、名额在创建失败后才腾出，却没人通知"的情况
+                idle = claimIdle();
+                if (idle != null) {
+                    return idle;
+                }
+                if (totalCount.get() < maxSize && !closed) {
+                    continue;
+                }
+                Entry<T> handed = handoffQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (handed != null && handed.state.compareAndSet(NOT_IN_USE, IN_USE)) {
+                    return handed;
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+    }
+
+    private Entry<T> claimIdle() {
+        for (Entry<T> entry : entries) {
+            if (entry.state.compareAndSet(NOT_IN_USE, IN_USE)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 占一个名额并创建对象，创建出的对象状态为 IN_USE；已达到 maxSize 时返回 null
+     */
+    private Entry<T> tryCreate() {
+        for (;;) {
+            int total = totalCount.get();
+            if (total >= maxSize || closed) {
+                return null;
+            }
+            if (totalCount.compareAndSet(total, total + 1)) {
+                break;
+            }
+        }
+        T object;
+        try {
+            object = factory.create();
+        } catch (Exception e) {
+            totalCount.decrementAndGet();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("pool [" + name + "] failed to create object", e);
+        }
+        Entry<T> entry = new Entry<>(object);
+        entries.add(entry);
+        createdCounter.increment();
+        return entry;
+    }
+
+    private boolean isValid(Entry<T> entry, long now) {
+        if (now - entry.lastReturned < validateAfterIdleNanos) {
+            return true;
+        }
+        try {
+            return factory.validate(entry.object);
+        } catch (Exception e) {
+            log.debug("pool [{}] 校验对象失败: {}", name, e.toString());
+            return false;
+        }
+    }
+
+    private void release(Entry<T> entry) {
+        long now = System.nanoTime();
+        long held = now - entry.borrowedAt;
+        usageTimer.record(held, TimeUnit.NANOSECONDS);
+        clearHolder(entry, held);
+        entry.lastReturned = now;
+        if (!requite(entry)) {
+            lastUsed.set(entry);
+        }
+        // 与 close() 并发时，close 的清理可能已经扫过这个对象
+        if (closed && entry.state.compareAndSet(NOT_IN_USE, REMOVED)) {
+            remove(entry, DestroyReason.CLOSED);
+        }
+    }
+
+    private void invalidate(Entry<T> entry) {
+        long held = System.nanoTime() - entry.borrowedAt;
+        usageTimer.record(held, TimeUnit.NANOSECONDS);
+        clearHolder(entry, held);
+        discard(entry, DestroyReason.INVALIDATED);
+    }
+
+    private void clearHolder(Entry<T> entry, long heldNanos) {
+        if (entry.leakReported) {
+            log.info("pool [{}] 之前报告疑似泄漏的 {} 已归还，占用 {} ms", name, entry.object,
+                    TimeUnit.NANOSECONDS.toMillis(heldNanos));
+        }
+        entry.holder = null;
+        entry.borrowStack = null;
+    }
+
+    /**
+     * 把对象标记为空闲；有等待者时尝试直接移交，直到有人拿走它或不再有等待者。
+     * 等待者登记后马上会重新扫描或阻塞在移交队列上，所以这里的空转只持续很短的时间
+     *
+     * @return 是否已被其他线程拿走
+     */
+    private boolean requite(Entry<T> entry) {
+        entry.state.set(NOT_IN_USE);
+        for (int i = 0; waiters.get() > 0; i++) {
+            if (entry.state.get() != NOT_IN_USE || handoffQueue.offer(entry)) {
+                return true;
+            }
+            if ((i & 0xff) == 0xff) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+            } else {
+                Thread.yield();
+            }
+        }
+        return false;
+    }
+
+    private void discard(Entry<T> entry, DestroyReason reason) {
+        entry.state.set(REMOVED);
+        remove(entry, reason);
+    }
+
+    private void remove(Entry<T> entry, DestroyReason reason) {
+        if (!entries.remove(entry)) {
+            return;
+        }
+        totalCount.decrementAndGet();
+        destroyedCounters.get(reason).increment();
+        try {
+            factory.destroy(entry.object);
+        } catch (Exception e) {
+            log.warn("pool [{}] 销毁对象失败: {}", name, e.toString());
+        }
+        // 腾出了名额，等待者此时都阻塞在移交队列上，由后台线程补一个对象移交给它们
+        if (waiters.get() > 0 && !closed) {
+            try {
+                housekeeper.execute(this::addForWaiters);
+            } catch (RejectedExecutionException ignored) {
+                // 池正在关闭
+            }
+        }
+    }
+
+    private void addForWaiters() {
+        try {
+            while (waiters.get() > 0 && !closed) {
+                Entry<T> entry = tryCreate();
+                if (entry == null) {
+                    return;
+                }
+                requite(entry);
+            }
+        } catch (Exception e) {
+            log.warn("pool [{}] 为等待者创建对象失败: {}", name, e.toString());
+        }
+    }
+
+    /**
+     * 销毁空闲超过 idleTimeout 的对象（保留 minIdle 个），并补足到 minIdle
+     */
+    private void evictIdle() {
+        try {
+            long now = System.nanoTime();
+            for (Entry<T> entry : entries) {
+                if (totalCount.get() <= minIdle) {
+                    break;
+                }
+                if (entry.state.get() == NOT_IN_USE && now - entry.lastReturned > idleTimeoutNanos
+                        && entry.state.compareAndSet(NOT_IN_USE, REMOVED)) {
+                    remove(entry, DestroyReason.IDLE);
+                }
+            }
+            while (!closed && totalCount.get() < minIdle) {
+                Entry<T> entry = tryCreate();
+                if (entry == null) {
+                    break;
+                }
+                requite(entry);
+            }
+        } catch (Exception e) {
+            log.warn("pool [{}] 空闲对象维护失败: {}", name, e.toString());
+        }
+    }
+
+    private void detectLeaks() {
+        long threshold = leakDetectionThresholdNanos;
+        if (threshold <= 0) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            for (Entry<T> entry : entries) {
+                if (entry.state.get() != IN_USE || entry.leakReported) {
+                    continue;
+                }
+                long held = now - entry.borrowedAt;
+                if (held <= threshold) {
+                    continue;
+                }
+                entry.leakReported = true;
+                leakCounter.increment();
+                Thread holder = entry.holder;
+                Throwable borrowStack = entry.borrowStack;
+                String holderName = holder != null ? holder.getName() : "unknown";
+                if (borrowStack != null) {
+                    log.warn("pool [{}] 疑似泄漏: {} 已被线程 {} 占用 {} ms，借出位置:", name, entry.object, holderName,
+                            TimeUnit.NANOSECONDS.toMillis(held), borrowStack);
+                } else {
+                    log.warn("pool [{}] 疑似泄漏: {} 已被线程 {} 占用 {} ms（开启 captureStackTraces 可记录借出位置）",
+                            name, entry.object, holderName, TimeUnit.NANOSECONDS.toMillis(held));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("pool [{}] 泄漏检测失败: {}", name, e.toString());
+        }
+    }
+
+    /**
+     * 当前借出的对象，按占用时长从长到短排序
+     */
+    public List<Holder> holders() {
+        long now = System.nanoTime();
+        long threshold = leakDetectionThresholdNanos;
+        List<Holder> result = new ArrayList<>();
+        for (Entry<T> entry : entries) {
+            if (entry.state.get() != IN_USE) {
+                continue;
+            }
+            long held = now - entry.borrowedAt;
+            Thread holder = entry.holder;
+            if (holder == null) {
+                // 刚创建还没交给借用方，或者正在归还
+                continue;
+            }
+            Throwable borrowStack = entry.borrowStack;
+            List<String> stack = null;
+            if (borrowStack != null) {
+                stack = new ArrayList<>();
+                for (StackTraceElement element : borrowStack.getStackTrace()) {
+                    stack.add(element.toString());
+                }
+            }
+            result.add(new Holder(String.valueOf(entry.object), holder.getName(), holder.getState().name(),
+                    TimeUnit.NANOSECONDS.toMillis(held), threshold > 0 && held > threshold, stack));
+        }
+        result.sort((a, b) -> Long.compare(b.heldMillis(), a.heldMillis()));
+        return result;
+    }
+
+    public Duration getLeakDetectionThreshold() {
+        return Duration.ofNanos(leakDetectionThresholdNanos);
+    }
+
+    /**
+     * 占用超过该时间的借用视为疑似泄漏，{@link Duration#ZERO} 关闭检测
+     */
+    public void setLeakDetectionThreshold(Duration threshold) {
+        this.leakDetectionThresholdNanos = Math.max(0, threshold.toNanos());
+    }
+
+    public boolean isCaptureStackTraces() {
+        return captureStackTraces;
+    }
+
+    /**
+     * 是否在借用时记录调用栈，只影响之后的借用
+     */
+    public void setCaptureStackTraces(boolean captureStackTraces) {
+        this.captureStackTraces = captureStackTraces;
+    }
+
+    public Timer getWaitTimer() {
+        return waitTimer;
+    }
+
+    public Timer getUsageTimer() {
+        return usageTimer;
+    }
+
+    public long getLeakCount() {
+        return (long) leakCounter.count();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActive() {
+        return count(IN_USE);
+    }
+
+    public int getIdle() {
+        return count(NOT_IN_USE);
+    }
+
+    public int getWaiters() {
+        return waiters.get();
+    }
+
+    private int count(int state) {
+        int count = 0;
+        for (Entry<T> entry : entries) {
+            if (entry.state.get() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 关闭池：立即销毁空闲对象，借出的对象在归还时销毁
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        housekeeper.shutdownNow();
+        for (Entry<T> entry : entries) {
+            if (entry.state.compareAndSet(NOT_IN_USE, REMOVED)) {
+                remove(entry, DestroyReason.CLOSED);
+            }
+        }
+        log.info("pool [{}] closed, {} object(s) still borrowed", name, getActive());
+    }
+
+    /**
+     * 一个借出中的对象
+     *
+     * @param borrowStack 借出时的调用栈，未开启 captureStackTraces 时为 null
+     */
+    public record Holder(String object, String thread, String threadState, long heldMillis,
+                         boolean leakSuspected, List<String> borrowStack) {
+    }
+
+    private static final class Entry<T> {
+        private final T object;
+        // 新建的对象直接交给创建它的线程，初始状态为 IN_USE
+        private final AtomicInteger state = new AtomicInteger(IN_USE);
+        private volatile long lastReturned = System.nanoTime();
+        private volatile long borrowedAt = System.nanoTime();
+        // 诊断信息，只在借出期间有值
+        private Thread holder;
+        private Throwable borrowStack;
+        private volatile boolean leakReported;
+
+        private Entry(T object) {
+            this.object = object;
+        }
+    }
+
+    /**
+     * 一次借用，close 时把对象还给池
+     */
+    public static final class Lease<T> implements AutoCloseable {
+        private final ObjectPool<T> pool;
+        private final Entry<T> entry;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Lease(ObjectPool<T> pool, Entry<T> entry) {
+            this.pool = pool;
+            this.entry = entry;
+        }
+
+        public T get() {
+            if (released.get()) {
+                throw new IllegalStateException("lease already released");
+            }
+            return entry.object;
+        }
+
+        /**
+         * 对象已损坏，销毁而不是放回池中
+         */
+        public void invalidate() {
+            if (released.compareAndSet(false, true)) {
+                pool.invalidate(entry);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                pool.release(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.dododo.pool;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查看对象池的使用情况和当前借用者，在线开关泄漏检测 / 借出调用栈记录
+ * <pre>
+ * curl http://localhost:8080/actuator/pools
+ * curl http://localhost:8080/actuator/pools/payment-gateway
+ * curl -X POST http://localhost:8080/actuator/pools/payment-gateway \
+ *      -H "Content-Type: application/json" -d '{"leakDetectionThresholdMs":2000,"captureStackTraces":true}'
+ * </pre>
+ * 列表页只给出借用者数量，单个池的详情里才有完整的借用者列表（按占用时长从长到短）。
+ * 不存在的池返回 404，参数不合法返回 400。
+ */
+@Component
+@Endpoint(id = "pools")
+public class PoolEndpoint {
+
+    private final Map<String, ObjectPool<?>> pools = new LinkedHashMap<>();
+
+    public PoolEndpoint(List<ObjectPool<?>> pools) {
+        pools.forEach(pool -> this.pools.put(pool.getName(), pool));
+    }
+
+    @ReadOperation
+    public Map<String, Object> pools() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        pools.forEach((name, pool) -> result.put(name, describe(pool, false)));
+        return result;
+    }
+
+    /**
+     * 返回 null 时 actuator 响应 404
+     */
+    @ReadOperation
+    public Map<String, Object> pool(@Selector String name) {
+        ObjectPool<?> pool = pools.get(name);
+        return pool != null ? describe(pool, true) : null;
+    }
+
+    /**
+     * 写操作返回 null 时 actuator 响应的是 204，所以池不存在时显式返回 404
+     */
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> configure(@Selector String name,
+                                                              @Nullable Long leakDetectionThresholdMs,
+                                                              @Nullable Boolean captureStackTraces) {
+        ObjectPool<?> pool = pools.get(name);
+        if (pool == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (leakDetectionThresholdMs != null && leakDetectionThresholdMs < 0) {
+            throw new InvalidEndpointRequestException("leakDetectionThresholdMs must not be negative: "
+                    + leakDetectionThresholdMs, "leakDetectionThresholdMs must not be negative");
+        }
+        if (leakDetectionThresholdMs != null) {
+            pool.setLeakDetectionThreshold(Duration.ofMillis(leakDetectionThresholdMs));
+        }
+        if (captureStackTraces != null) {
+            pool.setCaptureStackTraces(captureStackTraces);
+        }
+        return new WebEndpointResponse<>(describe(pool, true));
+    }
+
+    private static Map<String, Object> describe(ObjectPool<?> pool, boolean withHolders) {
+        List<ObjectPool.Holder> holders = pool.holders();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("maxSize", pool.getMaxSize());
+        result.put("active", pool.getActive());
+        result.put("idle", pool.getIdle());
+        result.put("waiters", pool.getWaiters());
+        result.put("borrowWait", describe(pool.getWaitTimer()));
+        result.put("usage", describe(pool.getUsageTimer()));
+        result.put("leakDetectionThresholdMs", pool.getLeakDetectionThreshold().toMillis());
+        result.put("captureStackTraces", pool.isCaptureStackTraces());
+        result.put("leaksDetected", pool.getLeakCount());
+        result.put("suspectedLeaks", holders.stream().filter(ObjectPool.Holder::leakSuspected).count());
+        if (withHolders) {
+            result.put("holders", holders);
+        } else {
+            result.put("holders", holders.size());
+        }
+        return result;
+    }
+
+    private static Map<String, Object> describe(Timer timer) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", timer.count());
+        result.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+        result.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+        return result;
+    }
+}
@@ -0,0 +1,11 @@
+package org.dododo.pool;
+
+/**
+ * 在 borrowTimeout 内没有借到对象
+ */
+public class PoolTimeoutException extends RuntimeException {
+
+    public PoolTimeoutException(String message) {
+        super(message);
+    }
+}
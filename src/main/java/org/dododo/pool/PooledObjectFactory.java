@@ -0,0 +1,25 @@
+package org.dododo.pool;
+
+/**
+ * {@link ObjectPool} 中对象的创建、校验和销毁
+ */
+public interface PooledObjectFactory<T> {
+
+    /**
+     * 创建一个新对象（例如建立连接），在借用线程或池的后台线程中调用
+     */
+    T create() throws Exception;
+
+    /**
+     * 对象空闲超过 validateAfterIdle 后再被借出前调用，返回 false 的对象会被销毁
+     */
+    default boolean validate(T object) {
+        return true;
+    }
+
+    /**
+     * 销毁对象（空闲淘汰、校验失败、被调用方标记为失效、池关闭）
+     */
+    default void destroy(T object) throws Exception {
+    }
+}
@@ -0,0 +1,235 @@
+package org.dododo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.dododo.config.MetricsProperties;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量事件上报：逐行解析 NDJSON 请求体，先在本地按 key 聚合，最后每个 key 只写一次指标
+ *
+ * <p>每行一个 JSON 对象，两种格式：
+ * <pre>
+ * {"type":"user_action","status":"success"}                       -> 自定义事件，等价于一次 recordCustomEvent
+ * {"metric":"business.gmv","businessType":"vip","value":99.9}     -> 业务指标，等价于一次 recordBusinessMetric
+ * </pre>
+ *
+ * 按行读取，不会把整个请求体读进内存；单行解析失败只影响这一行（计为 rejected），其余行照常处理。
+ * 单行最多缓冲 maxLineLength 个字符，超长的行直接跳到下一个换行符；读取的行数（含空行）达到 maxLines
+ * 或错误行数达到 maxErrors 后不再读取剩余的请求体，结果标记为 truncated。
+ */
+@Slf4j
+@Service
+public class BulkEventIngestionService {
+
+    private final BusinessMetricsService businessMetricsService;
+    private final ObjectReader lineReader;
+    private final MetricsProperties.Bulk bulk;
+
+    public BulkEventIngestionService(BusinessMetricsService businessMetricsService, ObjectMapper objectMapper,
+                                     MetricsProperties metricsProperties) {
+        this.businessMetricsService = businessMetricsService;
+        this.lineReader = objectMapper.readerFor(EventLine.class);
+        this.bulk = metricsProperties.getBulk();
+    }
+
+    public IngestResult ingest(InputStream body) throws IOException {
+        // (type, status) -> 次数；(metric, businessType) -> 累计值
+        Map<String, Map<String, long[]>> events = new HashMap<>();
+        Map<String, Map<String, double[]>> metrics = new HashMap<>();
+        IngestResult result = new IngestResult();
+
+        LineReader reader = new LineReader(new InputStreamReader(body, StandardCharsets.UTF_8), bulk.getMaxLineLength());
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            // 还有未处理的行时才检查上限，恰好 maxLines 行的请求不算截断；空行也计入行数，全是换行符的请求体同样会被截断
+            if (limitReached(result, lineNumber)) {
+                break;
+            }
+            lineNumber++;
+            if (line.isBlank() && !reader.isTooLong()) {
+                continue;
+            }
+            if (reader.isTooLong()) {
+                result.reject(lineNumber, "行长度超过 " + bulk.getMaxLineLength());
+                continue;
+            }
+
+            EventLine event;
+            String error;
+            try {
+                event = lineReader.readValue(line);
+                error = event.validate();
+            } catch (IOException e) {
+                event = null;
+                error = "JSON 解析失败";
+            }
+            if (error != null) {
+                result.reject(lineNumber, error);
+            } else if (event.isMetric()) {
+                metrics.computeIfAbsent(event.metric(), k -> new HashMap<>())
+                        .computeIfAbsent(event.businessType(), k -> new double[1])[0] += event.value();
+                result.accepted++;
+            } else {
+                events.computeIfAbsent(event.type(), k -> new HashMap<>())
+                        .computeIfAbsent(event.status(), k -> new long[1])[0]++;
+                result.accepted++;
+            }
+        }
+
+        events.forEach((type, byStatus) -> byStatus.forEach((status, count) ->
+                businessMetricsService.recordCustomEvents(type, status, count[0])));
+        metrics.forEach((metric, byType) -> byType.forEach((businessType, sum) ->
+                businessMetricsService.recordBusinessMetric(metric, businessType, sum[0])));
+
+        log.debug("批量事件上报: accepted={}, rejected={}, truncated={}, eventKeys={}, metricKeys={}",
+                result.accepted, result.rejected, result.truncated, events.size(), metrics.size());
+        return result;
+    }
+
+    /**
+     * 行数或错误数达到上限时标记 truncated，调用方不再读取剩余的请求体
+     */
+    private boolean limitReached(IngestResult result, int linesRead) {
+        if (result.rejected >= bulk.getMaxErrors()) {
+            result.truncate("错误行数达到 " + bulk.getMaxErrors() + "，其余行未处理");
+            return true;
+        }
+        if (linesRead >= bulk.getMaxLines()) {
+            result.truncate("超过单次请求最大行数 " + bulk.getMaxLines() + "，其余行未处理");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 按 '\n' 分行（去掉行尾的 '\r'），每行最多缓冲 maxLength 个字符：超出后不再追加，
+     * 直接丢弃到下一个换行符，{@link #isTooLong()} 为 true。BufferedReader.readLine 会先把整行读进内存再交给调用方判断长度。
+     */
+    static final class LineReader {
+
+        private final Reader reader;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+        private final StringBuilder line = new StringBuilder();
+        private boolean tooLong;
+
+        LineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * 下一行，请求体结束时返回 null；超长的行返回空字符串，调用方应先检查 {@link #isTooLong()}
+         */
+        String readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean any = false;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return any ? finish() : null;
+                    }
+                }
+                any = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                // 多留 1 个字符给行尾可能的 '\r'
+                if (!tooLong) {
+                    int room = maxLength + 1 - line.length();
+                    int count = position - start;
+                    if (count > room) {
+                        tooLong = true;
+                    } else {
+                        line.append(buffer, start, count);
+                    }
+                }
+                if (position < limit) {
+                    position++;
+                    return finish();
+                }
+            }
+        }
+
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        private String finish() {
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r') {
+                line.setLength(--length);
+            }
+            if (length > maxLength) {
+                tooLong = true;
+            }
+            return tooLong ? "" : line.toString();
+        }
+    }
+
+    /**
+     * NDJSON 中的一行
+     */
+    record EventLine(String type, String status, String metric, String businessType, Double value) {
+
+        boolean isMetric() {
+            return metric != null;
+        }
+
+        String validate() {
+            if (isMetric()) {
+                if (metric.isBlank() || businessType == null || businessType.isBlank()) {
+                    return "metric 和 businessType 不能为空";
+                }
+                if (value == null || !Double.isFinite(value) || value < 0) {
+                    return "value 必须是非负数";
+                }
+                return null;
+            }
+            if (type == null || type.isBlank() || status == null || status.isBlank()) {
+                return "type 和 status 不能为空";
+            }
+            return null;
+        }
+    }
+
+    @Getter
+    public static class IngestResult {
+        private long accepted;
+        private long rejected;
+        // 达到行数 / 错误数上限，请求体剩余部分没有读取
+        private boolean truncated;
+        private final List<String> errors = new ArrayList<>();
+
+        private void reject(int lineNumber, String reason) {
+            rejected++;
+            errors.add("line " + lineNumber + ": " + reason);
+        }
+
+        private void truncate(String reason) {
+            truncated = true;
+            errors.add(reason);
+        }
+    }
+}
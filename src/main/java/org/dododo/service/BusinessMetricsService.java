@@ -5,10 +5,25 @@ import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.dododo.concurrent.BoundedWorkQueue;
+import org.dododo.config.BusinessProperties;
+import org.dododo.config.MetricsProperties;
+import org.dododo.id.SnowflakeIdGenerator;
+import org.dododo.logging.LogSampler;
+import org.dododo.logging.LogSamplers;
+import org.dododo.metrics.CounterFamily;
+import org.dododo.metrics.DynamicCounterFamilies;
+import org.dododo.metrics.LatencyWindows;
+import org.dododo.metrics.MetricsAggregator;
+import org.dododo.metrics.SlidingWindowHistogram;
+import org.dododo.pool.ObjectPool;
+import org.dododo.pool.PoolTimeoutException;
 import org.springframework.stereotype.Service;
 
 import java.util.Random;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 业务指标服务示例
@@ -18,44 +33,101 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Service
 public class BusinessMetricsService {
 
-    private final MeterRegistry meterRegistry;
-    
     // Counter: 计数器，只增不减
+    // 高频 Counter 都经过 MetricsAggregator 本地预聚合，increment 只写 LongAdder / DoubleAdder，定期 flush 到注册表
     private final Counter orderCounter;
     private final Counter orderFailureCounter;
+
+    // 标签值固定的 Counter 提前注册好，热路径上不再查 MeterRegistry
+    private final Counter paymentSuccessAmount;
+    private final Counter paymentFailedAmount;
+    private final Counter loginCounter;
+    private final Counter logoutCounter;
+
+    // 标签值来自用户输入的 Counter：按标签值缓存，并限制基数
+    private final CounterFamily customEventCounters;
+    private final DynamicCounterFamilies businessMetricCounters;
     
     // Gauge: 仪表，可增可减，用于实时值
-    private final AtomicInteger activeUsers = new AtomicInteger(0);
-    private final AtomicInteger queueSize = new AtomicInteger(0);
+    // 活跃用户 / 去重用户由 SessionTracker 统计
+    private final SessionTracker sessionTracker;
+
+    // 真实的任务队列，business.queue.size 报告的是它的实际深度
+    private final BoundedWorkQueue workQueue;
+    private final BusinessProperties.Queue queueProperties;
     
     // Timer: 计时器，用于记录操作耗时
+    // 直方图桶和 SLO 阈值由 management.metrics.distribution.* 配置；同时写入进程内滑动窗口，供 /actuator/latency 查询
     private final Timer orderProcessTimer;
     private final Timer paymentTimer;
+    private final SlidingWindowHistogram orderProcessWindow;
+    private final SlidingWindowHistogram paymentWindow;
     
+    private final SnowflakeIdGenerator idGenerator;
+
+    // 支付网关连接池：maxSize 限制了同时进行的支付数，借用等待 / 占用时间见 pool.* 指标
+    private final ObjectPool<PaymentGatewayConnection> gatewayPool;
+
+    // 热路径上的业务日志按调用点限流，被限流的条数见 logging.sampled.suppressed{site}
+    // 先检查日志级别：级别关闭时不占用配额，也不计入 suppressed
+    private final LogSampler orderCreatedLog;
+    private final LogSampler orderFailedLog;
+    private final LogSampler paymentLog;
+    // 网关连接耗尽的 WARN 单独限流，不和正常支付的 INFO 共用每秒配额
+    private final LogSampler paymentUnavailableLog;
+    private final LogSampler loginLog;
+    private final LogSampler logoutLog;
+    private final LogSampler customEventLog;
+
     private final Random random = new Random();
 
-    public BusinessMetricsService(MeterRegistry meterRegistry) {
-        this.meterRegistry = meterRegistry;
-        
+    public BusinessMetricsService(MeterRegistry meterRegistry, MetricsProperties metricsProperties,
+                                  MetricsAggregator aggregator, SnowflakeIdGenerator idGenerator,
+                                  BoundedWorkQueue workQueue, BusinessProperties businessProperties,
+                                  LatencyWindows latencyWindows, SessionTracker sessionTracker,
+                                  LogSamplers logSamplers, ObjectPool<PaymentGatewayConnection> gatewayPool) {
+        this.gatewayPool = gatewayPool;
+        this.sessionTracker = sessionTracker;
+        this.orderCreatedLog = logSamplers.sampler("order.created");
+        this.orderFailedLog = logSamplers.sampler("order.failed");
+        this.paymentLog = logSamplers.sampler("payment.processed");
+        this.paymentUnavailableLog = logSamplers.sampler("payment.unavailable");
+        this.loginLog = logSamplers.sampler("user.login");
+        this.logoutLog = logSamplers.sampler("user.logout");
+        this.customEventLog = logSamplers.sampler("custom.event");
+        this.idGenerator = idGenerator;
+        this.workQueue = workQueue;
+        this.queueProperties = businessProperties.getQueue();
+
         // 创建计数器 - 订单总数
-        this.orderCounter = Counter.builder("business.orders.total")
+        this.orderCounter = aggregator.stripe(Counter.builder("business.orders.total")
                 .description("订单总数")
                 .tag("type", "all")
-                .register(meterRegistry);
+                .register(meterRegistry));
         
         // 创建计数器 - 订单失败数
-        this.orderFailureCounter = Counter.builder("business.orders.failed")
+        this.orderFailureCounter = aggregator.stripe(Counter.builder("business.orders.failed")
                 .description("订单失败数")
                 .tag("type", "failed")
-                .register(meterRegistry);
+                .register(meterRegistry));
         
         // 创建仪表 - 活跃用户数
-        Gauge.builder("business.users.active", activeUsers, AtomicInteger::get)
-                .description("当前活跃用户数")
+        Gauge.builder("business.users.active", sessionTracker, SessionTracker::activeUsers)
+                .description("当前活跃用户数（未登出且未超时的会话）")
+                .register(meterRegistry);
+
+        // 创建仪表 - 去重用户数（HyperLogLog 估算）
+        Gauge.builder("business.users.distinct", sessionTracker, SessionTracker::distinctUsersLastMinute)
+                .description("最近一段时间内有过活动的不同用户数（估算）")
+                .tag("window", "1m")
+                .register(meterRegistry);
+        Gauge.builder("business.users.distinct", sessionTracker, SessionTracker::distinctUsersLastHour)
+                .description("最近一段时间内有过活动的不同用户数（估算）")
+                .tag("window", "1h")
                 .register(meterRegistry);
         
         // 创建仪表 - 队列大小
-        Gauge.builder("business.queue.size", queueSize, AtomicInteger::get)
+        Gauge.builder("business.queue.size", workQueue, BoundedWorkQueue::size)
                 .description("待处理队列大小")
                 .register(meterRegistry);
         
@@ -70,6 +142,28 @@ public class BusinessMetricsService {
                 .description("支付处理耗时")
                 .tag("operation", "payment")
                 .register(meterRegistry);
+        this.orderProcessWindow = latencyWindows.window("business.order.process.duration");
+        this.paymentWindow = latencyWindows.window("business.payment.duration");
+
+        this.paymentSuccessAmount = aggregator.stripe(Counter.builder("business.payment.amount")
+                .tag("status", "success")
+                .register(meterRegistry));
+        this.paymentFailedAmount = aggregator.stripe(Counter.builder("business.payment.amount")
+                .tag("status", "failed")
+                .register(meterRegistry));
+        this.loginCounter = aggregator.stripe(Counter.builder("business.user.login.total")
+                .tag("event", "login")
+                .register(meterRegistry));
+        this.logoutCounter = aggregator.stripe(Counter.builder("business.user.logout.total")
+                .tag("event", "logout")
+                .register(meterRegistry));
+
+        MetricsProperties.Cardinality cardinality = metricsProperties.getCardinality();
+        this.customEventCounters = new CounterFamily("business.custom.event", "自定义事件",
+                cardinality.getMaxSeriesPerMetric(), meterRegistry, aggregator::stripe, "type", "status");
+        this.businessMetricCounters = new DynamicCounterFamilies("business_type",
+                cardinality.getMaxDynamicMetricNames(), cardinality.getMaxSeriesPerMetric(),
+                "business.metric.other", meterRegistry, aggregator::stripe);
     }
 
     /**
@@ -78,20 +172,25 @@ public class BusinessMetricsService {
     public String createOrder(String userId, double amount) {
         // 增加订单计数
         orderCounter.increment();
+        sessionTracker.touch(userId);
         
         // 记录订单处理耗时
-        return orderProcessTimer.record(() -> {
+        return timed(orderProcessTimer, orderProcessWindow, () -> {
             try {
                 // 模拟订单处理
                 Thread.sleep(random.nextInt(100) + 50);
                 
                 // 70% 的概率成功
                 if (random.nextDouble() < 0.7) {
-                    log.info("订单创建成功: userId={}, amount={}", userId, amount);
-                    return "ORDER_" + System.currentTimeMillis();
+                    if (log.isInfoEnabled() && orderCreatedLog.tryAcquire()) {
+                        log.info("订单创建成功: userId={}, amount={}", userId, amount);
+                    }
+                    return SnowflakeIdGenerator.encode("ORDER_", idGenerator.nextId());
                 } else {
                     orderFailureCounter.increment();
-                    log.warn("订单创建失败: userId={}, amount={}", userId, amount);
+                    if (log.isWarnEnabled() && orderFailedLog.tryAcquire()) {
+                        log.warn("订单创建失败: userId={}, amount={}", userId, amount);
+                    }
                     throw new RuntimeException("订单创建失败");
                 }
             } catch (InterruptedException e) {
@@ -102,95 +201,156 @@ public class BusinessMetricsService {
         });
     }
 
+    /**
+     * 支付没有真正发起（借不到网关连接或等待时被中断），可以重试，不代表扣款失败
+     */
+    public static class PaymentUnavailableException extends RuntimeException {
+        public PaymentUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
     /**
      * 处理支付
+     *
+     * @return 网关的扣款结果
+     * @throws PaymentUnavailableException 没有发起扣款
      */
     public boolean processPayment(String orderId, double amount) {
-        return paymentTimer.record(() -> {
-            try {
-                // 模拟支付处理
-                Thread.sleep(random.nextInt(200) + 100);
-                
-                boolean success = random.nextDouble() < 0.9; // 90% 成功率
-                log.info("支付处理: orderId={}, amount={}, success={}", orderId, amount, success);
+        return timed(paymentTimer, paymentWindow, () -> {
+            try (ObjectPool.Lease<PaymentGatewayConnection> lease = gatewayPool.borrow()) {
+                PaymentGatewayConnection connection = lease.get();
+                boolean success = connection.charge(orderId, amount);
+                if (!connection.isOpen()) {
+                    // 连接已被网关断开，不放回池中
+                    lease.invalidate();
+                }
+                if (log.isInfoEnabled() && paymentLog.tryAcquire()) {
+                    log.info("支付处理: orderId={}, amount={}, success={}", orderId, amount, success);
+                }
                 
                 // 可以根据支付结果添加更多指标
                 if (success) {
                     // 记录支付金额
-                    meterRegistry.counter("business.payment.amount", 
-                            "status", "success")
-                            .increment(amount);
+                    paymentSuccessAmount.increment(amount);
                 } else {
-                    meterRegistry.counter("business.payment.amount", 
-                            "status", "failed")
-                            .increment(amount);
+                    paymentFailedAmount.increment(amount);
                 }
                 
                 return success;
+            } catch (PoolTimeoutException e) {
+                // 没有发起扣款：不计入失败金额，由调用方稍后重试
+                if (log.isWarnEnabled() && paymentUnavailableLog.tryAcquire()) {
+                    log.warn("支付未执行，没有可用的网关连接: orderId={}, {}", orderId, e.getMessage());
+                }
+                throw new PaymentUnavailableException("支付网关繁忙，请稍后重试", e);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                return false;
+                throw new PaymentUnavailableException("支付被中断，未执行扣款", e);
             }
         });
     }
 
+    /**
+     * 同时记录到 Timer 和滑动窗口
+     */
+    private static <T> T timed(Timer timer, SlidingWindowHistogram window, Supplier<T> operation) {
+        long start = System.nanoTime();
+        try {
+            return operation.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+            window.recordNanos(elapsed);
+        }
+    }
+
     /**
      * 用户登录
      */
     public void userLogin(String userId) {
-        activeUsers.incrementAndGet();
-        log.info("用户登录: userId={}, 当前活跃用户数: {}", userId, activeUsers.get());
+        boolean newSession = sessionTracker.login(userId);
+        if (log.isInfoEnabled() && loginLog.tryAcquire()) {
+            log.info("用户登录: userId={}, newSession={}, 当前活跃用户数: {}", userId, newSession, sessionTracker.activeUsers());
+        }
         
         // 也可以用 Counter 记录总登录次数
-        meterRegistry.counter("business.user.login.total", 
-                "event", "login").increment();
+        loginCounter.increment();
     }
 
     /**
      * 用户登出
      */
     public void userLogout(String userId) {
-        activeUsers.decrementAndGet();
-        log.info("用户登出: userId={}, 当前活跃用户数: {}", userId, activeUsers.get());
+        boolean hadSession = sessionTracker.logout(userId);
+        if (log.isInfoEnabled() && logoutLog.tryAcquire()) {
+            log.info("用户登出: userId={}, hadSession={}, 当前活跃用户数: {}", userId, hadSession, sessionTracker.activeUsers());
+        }
         
-        meterRegistry.counter("business.user.logout.total", 
-                "event", "logout").increment();
+        logoutCounter.increment();
     }
 
     /**
-     * 添加任务到队列
+     * 添加任务到队列，由队列的消费者线程异步执行
+     *
+     * @return false 表示队列已满且背压策略为 DROP，任务被丢弃
+     * @throws java.util.concurrent.RejectedExecutionException 队列已满且策略为 REJECT，或 BLOCK 等待超时
      */
-    public void addToQueue() {
-        queueSize.incrementAndGet();
-        log.debug("任务入队，当前队列大小: {}", queueSize.get());
+    public boolean addToQueue() {
+        boolean accepted = workQueue.submit(this::processQueuedTask);
+        log.debug("任务入队: accepted={}, 当前队列大小: {}", accepted, workQueue.size());
+        return accepted;
     }
 
     /**
-     * 从队列移除任务
+     * 从队列移除一个尚未执行的任务
+     *
+     * @return 队列为空时返回 false
      */
-    public void removeFromQueue() {
-        queueSize.decrementAndGet();
-        log.debug("任务出队，当前队列大小: {}", queueSize.get());
+    public boolean removeFromQueue() {
+        boolean removed = workQueue.removeOne();
+        log.debug("任务出队: removed={}, 当前队列大小: {}", removed, workQueue.size());
+        return removed;
+    }
+
+    public int getQueueSize() {
+        return workQueue.size();
+    }
+
+    private void processQueuedTask() {
+        long minMs = queueProperties.getMinWork().toMillis();
+        long maxMs = Math.max(minMs, queueProperties.getMaxWork().toMillis());
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(minMs, maxMs + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
      * 记录自定义事件
      */
     public void recordCustomEvent(String eventType, String eventStatus) {
-        meterRegistry.counter("business.custom.event",
-                "type", eventType,
-                "status", eventStatus)
-                .increment();
+        customEventCounters.counter(eventType, eventStatus).increment();
         
-        log.info("记录自定义事件: type={}, status={}", eventType, eventStatus);
+        if (log.isInfoEnabled() && customEventLog.tryAcquire()) {
+            log.info("记录自定义事件: type={}, status={}", eventType, eventStatus);
+        }
+    }
+
+    /**
+     * 批量记录同一 (type, status) 的自定义事件，bulk 接口聚合后调用
+     */
+    public void recordCustomEvents(String eventType, String eventStatus, long count) {
+        customEventCounters.counter(eventType, eventStatus).increment(count);
     }
 
     /**
      * 记录带标签的业务指标
+     * <p>
+     * 指标名和 business_type 都有数量上限，超出的分别归入 business.metric.other 和 other
      */
     public void recordBusinessMetric(String metricName, String businessType, double value) {
-        meterRegistry.counter(metricName,
-                "business_type", businessType)
-                .increment(value);
+        businessMetricCounters.family(metricName).counter(businessType).increment(value);
     }
 }
@@ -0,0 +1,32 @@
+package org.dododo.service;
+
+/**
+ * Dashboard 的各个数据区块
+ */
+public enum DashboardSection {
+    USER_INFO("userInfo", "userInfo"),
+    ORDERS("orders", "orderInfo"),
+    RECOMMENDATIONS("recommendations", "recommendations");
+
+    private final String key;
+    private final String synchronizersKey;
+
+    DashboardSection(String key, String synchronizersKey) {
+        this.key = key;
+        this.synchronizersKey = synchronizersKey;
+    }
+
+    /**
+     * 返回给前端的字段名
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * /synchronizers 接口沿用的字段名（订单一直叫 orderInfo，改名会破坏已有调用方）
+     */
+    public String getSynchronizersKey() {
+        return synchronizersKey;
+    }
+}
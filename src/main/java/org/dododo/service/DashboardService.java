@@ -1,90 +1,161 @@
 package org.dododo.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dododo.concurrent.Deadline;
+import org.dododo.concurrent.DeadlineExceededException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 
 // 模拟耗时业务1
+// 每个 fetch 都带上调用方的 Deadline：模拟的下游调用最多等到 deadline，调用方放弃后立刻退出，不再占用执行器线程
+// 每个下游使用独立的执行器（舱壁隔离），某个 section 变慢只会占满自己的线程池
 @Slf4j
 @Service
 public class DashboardService {
 
-    @Async
-    public void fetchUserInfo(Map<String, Object> res, CountDownLatch latch) {
+    @Async("userInfoExecutor")
+    public void fetchUserInfo(Map<String, Object> res, CountDownLatch latch, Deadline deadline) {
         try {
-            Thread.sleep(1000);
-            res.put("userInfo", "User: Supremes");
+            deadline.sleep(1000);
+            res.put(DashboardSection.USER_INFO.getSynchronizersKey(), "User: Supremes");
             //log.info("{} - 获取用户信息完成", Thread.currentThread().getName());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } catch (DeadlineExceededException e) {
+            log.debug("获取用户信息放弃: {}", e.getMessage());
         } finally {
             latch.countDown();
         }
     }
 
-    @Async
-    public CompletableFuture<String> fetchUserInfo() {
+    @Async("userInfoExecutor")
+    public CompletableFuture<String> fetchUserInfo(String userId, Deadline deadline) {
         try {
-            Thread.sleep(1000);
+            deadline.sleep(1000);
             //log.info("{} - 获取用户信息完成", Thread.currentThread().getName());
-            return CompletableFuture.completedFuture("User: Supremes");
+            return CompletableFuture.completedFuture("User: " + userId);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             return CompletableFuture.failedFuture(e);
+        } catch (DeadlineExceededException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    @Async
-    public void fetchOrders(Map<String, Object> res, CountDownLatch latch) {
+    @Async("ordersExecutor")
+    public void fetchOrders(Map<String, Object> res, CountDownLatch latch, Deadline deadline) {
         try {
-            Thread.sleep(800);
-            res.put("orderInfo", "Order ID: 1024, Status: PAID");
+            deadline.sleep(800);
+            res.put(DashboardSection.ORDERS.getSynchronizersKey(), "Order ID: 1024, Status: PAID");
             //log.info("{} - 获取订单信息完成", Thread.currentThread().getName());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } catch (DeadlineExceededException e) {
+            log.debug("获取订单信息放弃: {}", e.getMessage());
         } finally {
             latch.countDown();
         }
     }
 
-    @Async
-    public CompletableFuture<String> fetchOrders() {
+    @Async("ordersExecutor")
+    public CompletableFuture<String> fetchOrders(String userId, Deadline deadline) {
         try {
-            Thread.sleep(800);
+            deadline.sleep(800);
             //log.info("{} - 获取订单信息完成", Thread.currentThread().getName());
             return CompletableFuture.completedFuture("Order ID: 1024, Status: PAID");
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             return CompletableFuture.failedFuture(e);
+        } catch (DeadlineExceededException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    @Async
-    public void fetchRecommendations(Map<String, Object> res, CountDownLatch latch) {
+    @Async("recommendationsExecutor")
+    public void fetchRecommendations(Map<String, Object> res, CountDownLatch latch, Deadline deadline) {
         try {
-            Thread.sleep(1500);
-            res.put("recommendations", "Item: Java Concurrency Book");
+            deadline.sleep(1500);
+            res.put(DashboardSection.RECOMMENDATIONS.getSynchronizersKey(), "Item: Java Concurrency Book");
             //log.info("{} - 获取推荐信息完成", Thread.currentThread().getName());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } catch (DeadlineExceededException e) {
+            log.debug("获取推荐信息放弃: {}", e.getMessage());
         } finally {
             latch.countDown();
         }
     }
 
-    @Async
-    public CompletableFuture<String> fetchRecommendations() {
+    @Async("recommendationsExecutor")
+    public CompletableFuture<String> fetchRecommendations(String userId, Deadline deadline) {
         try {
-            Thread.sleep(1500);
+            deadline.sleep(1500);
             //log.info("{} - 获取推荐信息完成", Thread.currentThread().getName());
             return CompletableFuture.completedFuture("Item: Java Concurrency Book");
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             return CompletableFuture.failedFuture(e);
+        } catch (DeadlineExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // ===== 批量版本：一个批次只调用一次下游，N 个用户只占用一个执行器任务 =====
+
+    @Async("userInfoExecutor")
+    public CompletableFuture<Map<String, String>> fetchUserInfoBatch(List<String> userIds, Deadline deadline) {
+        try {
+            deadline.sleep(1000); // 一次批量往返
+            Map<String, String> result = new LinkedHashMap<>();
+            for (String userId : userIds) {
+                result.put(userId, "User: " + userId);
+            }
+            return CompletableFuture.completedFuture(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        } catch (DeadlineExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Async("ordersExecutor")
+    public CompletableFuture<Map<String, String>> fetchOrdersBatch(List<String> userIds, Deadline deadline) {
+        try {
+            deadline.sleep(800);
+            Map<String, String> result = new LinkedHashMap<>();
+            for (String userId : userIds) {
+                result.put(userId, "Order ID: 1024, Status: PAID");
+            }
+            return CompletableFuture.completedFuture(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        } catch (DeadlineExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Async("recommendationsExecutor")
+    public CompletableFuture<Map<String, String>> fetchRecommendationsBatch(List<String> userIds, Deadline deadline) {
+        try {
+            deadline.sleep(1500);
+            Map<String, String> result = new LinkedHashMap<>();
+            for (String userId : userIds) {
+                result.put(userId, "Item: Java Concurrency Book");
+            }
+            return CompletableFuture.completedFuture(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        } catch (DeadlineExceededException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 }
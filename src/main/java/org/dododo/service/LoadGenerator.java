@@ -0,0 +1,372 @@
+package org.dododo.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.dododo.config.BusinessProperties;
+import org.dododo.metrics.LatencyHistogram;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 内置压测：开放模型（open model）负载生成器
+ *
+ * <ul>
+ *   <li><b>开放模型</b>：按目标速率安排请求到达时间（第 i 个请求在 start + i / rate 发出），与请求是否完成无关；
+ *       不会像闭环循环那样在系统变慢时自动降低压力</li>
+ *   <li><b>并发上限</b>：同时执行的请求超过 concurrency 时，新到达的请求直接记为 dropped，而不是排队，保证到达速率不受影响</li>
+ *   <li><b>避免 coordinated omission</b>：延迟从计划的到达时间开始计算，发压线程落后时的等待时间也算在延迟里</li>
+ *   <li><b>操作比例</b>：login / order / payment / logout / pipeline 按权重随机选择，例如 login:1,order:2,payment:2,logout:1</li>
+ *   <li><b>goodput</b>：只统计成功的操作；throughput 包含失败的操作</li>
+ * </ul>
+ *
+ * 直接调用本节点的 Service（不经过 HTTP），延迟统计使用 {@link LatencyHistogram}。同一时刻只运行一个压测。
+ */
+@Slf4j
+@Service
+public class LoadGenerator {
+
+    public enum Operation {
+        LOGIN, ORDER, PAYMENT, LOGOUT, PIPELINE
+    }
+
+    public enum State {
+        RUNNING, FINISHED, STOPPED
+    }
+
+    private final BusinessMetricsService businessMetricsService;
+    private final OrderPipeline orderPipeline;
+    private final BusinessProperties.LoadTest limits;
+    private final AtomicReference<Run> current = new AtomicReference<>();
+    private final AtomicInteger runIds = new AtomicInteger();
+
+    public LoadGenerator(BusinessMetricsService businessMetricsService, OrderPipeline orderPipeline,
+                         BusinessProperties businessProperties) {
+        this.businessMetricsService = businessMetricsService;
+        this.orderPipeline = orderPipeline;
+        this.limits = businessProperties.getLoadTest();
+    }
+
+    /**
+     * 启动一次压测，立即返回
+     *
+     * @throws IllegalArgumentException 参数不合法
+     * @throws IllegalStateException    已有压测在运行
+     */
+    public Run start(int rate, Duration duration, int concurrency, String mix) {
+        if (rate < 1 || rate > limits.getMaxRate()) {
+            throw new IllegalArgumentException("rate 必须在 1 ~ " + limits.getMaxRate() + " 之间");
+        }
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(limits.getMaxDuration()) > 0) {
+            throw new IllegalArgumentException("duration 必须大于 0 且不超过 " + limits.getMaxDuration());
+        }
+        if (concurrency < 1 || concurrency > limits.getMaxConcurrency()) {
+            throw new IllegalArgumentException("concurrency 必须在 1 ~ " + limits.getMaxConcurrency() + " 之间");
+        }
+        Run run = new Run(runIds.incrementAndGet(), rate, duration, concurrency, parseMix(mix));
+        Run previous = current.get();
+        if (previous != null && previous.state == State.RUNNING) {
+            throw new IllegalStateException("已有压测在运行: runId=" + previous.runId);
+        }
+        if (!current.compareAndSet(previous, run)) {
+            throw new IllegalStateException("已有压测在运行");
+        }
+        Thread dispatcher = new Thread(run::dispatch, "load-generator-" + run.runId);
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("压测开始: runId={}, rate={}/s, duration={}, concurrency={}, mix={}",
+                run.runId, rate, duration, concurrency, run.weights);
+        return run;
+    }
+
+    /**
+     * 当前或最近一次压测，没有时返回 null
+     */
+    public Run current() {
+        return current.get();
+    }
+
+    public boolean stop() {
+        Run run = current.get();
+        if (run == null || run.state != State.RUNNING) {
+            return false;
+        }
+        run.stopRequested = true;
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("mix 格式应为 op:weight,op:weight，例如 login:1,order:2");
+            }
+            Operation operation;
+            int weight;
+            try {
+                operation = Operation.valueOf(kv[0].trim().toUpperCase(Locale.ROOT));
+                weight = Integer.parseInt(kv[1].trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("无法解析 mix: " + part);
+            }
+            if (weight < 0) {
+                throw new IllegalArgumentException("权重不能为负数: " + part);
+            }
+            if (weight > 0) {
+                weights.merge(operation, weight, Integer::sum);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("mix 中至少需要一个权重大于 0 的操作");
+        }
+        return weights;
+    }
+
+    /**
+     * @param deadlineNanos 压测计划结束的时间（System.nanoTime），异步的 pipeline 最多等到这个时间
+     */
+    private void execute(Operation operation, long deadlineNanos) {
+        String userId = "load-user-" + ThreadLocalRandom.current().nextInt(10000);
+        double amount = 10 + ThreadLocalRandom.current().nextInt(1000);
+        switch (operation) {
+            case LOGIN -> businessMetricsService.userLogin(userId);
+            case LOGOUT -> businessMetricsService.userLogout(userId);
+            case ORDER -> businessMetricsService.createOrder(userId, amount);
+            case PAYMENT -> {
+                if (!businessMetricsService.processPayment("ORDER_LOAD_" + userId, amount)) {
+                    throw new IllegalStateException("支付失败");
+                }
+            }
+            case PIPELINE -> {
+                OrderPipeline.Job job = awaitPipeline(orderPipeline.submit(userId, amount), deadlineNanos);
+                if (job.getStatus() != OrderPipeline.Status.COMPLETED) {
+                    throw new IllegalStateException(job.getError());
+                }
+            }
+        }
+    }
+
+    private static OrderPipeline.Job awaitPipeline(OrderPipeline.Job job, long deadlineNanos) {
+        try {
+            return job.getFuture().get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("压测结束前流水线未完成: " + job.getJobId());
+        } catch (InterruptedException e) {
+            // 压测被停止，工作线程被中断
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待流水线时被中断: " + job.getJobId());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 一次压测的状态和统计
+     */
+    public class Run {
+        private final int runId;
+        private final int rate;
+        private final Duration duration;
+        private final int concurrency;
+        private final Map<Operation, Integer> weights;
+        private final Operation[] operations;
+        private final int[] cumulativeWeights;
+
+        private volatile State state = State.RUNNING;
+        private volatile boolean stopRequested;
+        private final long startNanos = System.nanoTime();
+        private volatile long endNanos;
+
+        private final Semaphore permits;
+        private final ThreadPoolExecutor workers;
+        private final AtomicLong issued = new AtomicLong();
+        private final LongAdder dropped = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+        Run(int runId, int rate, Duration duration, int concurrency, Map<Operation, Integer> weights) {
+            this.runId = runId;
+            this.rate = rate;
+            this.duration = duration;
+            this.concurrency = concurrency;
+            this.weights = weights;
+            this.operations = weights.keySet().toArray(new Operation[0]);
+            this.cumulativeWeights = new int[operations.length];
+            int total = 0;
+            for (int i = 0; i < operations.length; i++) {
+                total += weights.get(operations[i]);
+                cumulativeWeights[i] = total;
+                stats.put(operations[i], new OperationStats());
+            }
+            this.permits = new Semaphore(concurrency);
+            AtomicInteger threadIds = new AtomicInteger();
+            // 线程数由 permits 限制在 concurrency 以内，SynchronousQueue 不排队
+            this.workers = new ThreadPoolExecutor(0, concurrency, 30, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+                Thread t = new Thread(r, "load-worker-" + runId + "-" + threadIds.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        /**
+         * 发压线程：按计划的到达时间发出请求，落后时立即补发（不睡眠）
+         */
+        private void dispatch() {
+            long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+            long total = duration.toNanos() / intervalNanos;
+            try {
+                for (long i = 0; i < total && !stopRequested; i++) {
+                    long intendedStart = startNanos + i * intervalNanos;
+                    long wait = intendedStart - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    issue(intendedStart);
+                }
+                // 等待已发出的请求完成
+                workers.shutdown();
+                workers.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                workers.shutdownNow();
+                endNanos = System.nanoTime();
+                state = stopRequested ? State.STOPPED : State.FINISHED;
+                log.info("压测结束: {}", report());
+            }
+        }
+
+        private void issue(long intendedStart) {
+            issued.incrementAndGet();
+            Operation operation = pickOperation();
+            if (!permits.tryAcquire()) {
+                dropped.increment();
+                return;
+            }
+            try {
+                workers.execute(() -> {
+                    boolean success = false;
+                    try {
+                        execute(operation, startNanos + duration.toNanos());
+                        success = true;
+                    } catch (RuntimeException e) {
+                        // 业务失败计入错误率
+                    } finally {
+                        long elapsed = System.nanoTime() - intendedStart;
+                        latency.recordNanos(elapsed);
+                        stats.get(operation).record(elapsed, success);
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 刚释放 permit 的工作线程还没回到池中时可能被拒绝，同样记为 dropped
+                permits.release();
+                dropped.increment();
+            }
+        }
+
+        private Operation pickOperation() {
+            int r = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (r < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            return operations[operations.length - 1];
+        }
+
+        public int getRunId() {
+            return runId;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public Map<String, Object> report() {
+            long end = state == State.RUNNING ? System.nanoTime() : endNanos;
+            double elapsedSeconds = (end - startNanos) / 1e9;
+            long completed = 0;
+            long failed = 0;
+            Map<String, Object> operationReports = new LinkedHashMap<>();
+            for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+                OperationStats s = entry.getValue();
+                completed += s.completed.sum();
+                failed += s.failed.sum();
+                operationReports.put(entry.getKey().name().toLowerCase(Locale.ROOT), s.report(elapsedSeconds));
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("runId", runId);
+            result.put("state", state);
+            result.put("targetRate", rate);
+            result.put("durationSeconds", duration.toSeconds());
+            result.put("concurrency", concurrency);
+            result.put("elapsedSeconds", round(elapsedSeconds));
+            result.put("issued", issued.get());
+            result.put("completed", completed);
+            result.put("failed", failed);
+            result.put("dropped", dropped.sum());
+            result.put("inFlight", concurrency - permits.availablePermits());
+            result.put("throughput", round(elapsedSeconds > 0 ? completed / elapsedSeconds : 0));
+            result.put("goodput", round(elapsedSeconds > 0 ? (completed - failed) / elapsedSeconds : 0));
+            result.put("errorRate", round(completed > 0 ? (double) failed / completed : 0));
+            result.put("latencyMs", latency.snapshot().toMillisMap());
+            result.put("operations", operationReports);
+            return result;
+        }
+    }
+
+    private static class OperationStats {
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(long elapsedNanos, boolean success) {
+            completed.increment();
+            if (!success) {
+                failed.increment();
+            }
+            latency.recordNanos(elapsedNanos);
+        }
+
+        Map<String, Object> report(double elapsedSeconds) {
+            long done = completed.sum();
+            long errors = failed.sum();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("completed", done);
+            result.put("failed", errors);
+            result.put("throughput", round(elapsedSeconds > 0 ? done / elapsedSeconds : 0));
+            result.put("goodput", round(elapsedSeconds > 0 ? (done - errors) / elapsedSeconds : 0));
+            result.put("latencyMs", latency.snapshot().toMillisMap());
+            return result;
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,264 @@
+package org.dododo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.dododo.analytics.OrderAggregator;
+import org.dododo.analytics.OrderDataset;
+import org.dododo.analytics.OrderStatus;
+import org.dododo.config.AnalyticsProperties;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 内存订单 / 支付数据集上的并行分析，聚合由 {@link OrderAggregator} 在专用 ForkJoinPool 中完成
+ *
+ * <p>数据集由 {@link #generate} 生成后整体替换（volatile 引用），查询期间不会被修改；
+ * 每次查询的耗时记录在 analytics.query.duration{query}，并随结果返回。金额对外以元为单位。
+ */
+@Slf4j
+@Service
+public class OrderAnalyticsService {
+
+    // 扩展性测试每个并行度跑几轮，取最快的一次
+    private static final int SCALING_ROUNDS = 3;
+
+    private final ForkJoinPool pool;
+    private final OrderAggregator aggregator;
+    private final AnalyticsProperties properties;
+    private final Timer generateTimer;
+    private final Timer summaryTimer;
+    private final Timer usersTimer;
+    private final AtomicBoolean scalingRunning = new AtomicBoolean(false);
+    // 生成期间新旧两份数据集同时在内存中，并发生成会再叠加几份，所以同一时间只允许一次
+    private final AtomicBoolean generating = new AtomicBoolean(false);
+
+    private volatile OrderDataset dataset;
+    private volatile long datasetSeed;
+
+    public OrderAnalyticsService(ForkJoinPool analyticsPool, AnalyticsProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.pool = analyticsPool;
+        this.aggregator = new OrderAggregator(analyticsPool);
+        this.properties = properties;
+        this.generateTimer = queryTimer("generate", meterRegistry);
+        this.summaryTimer = queryTimer("summary", meterRegistry);
+        this.usersTimer = queryTimer("users", meterRegistry);
+    }
+
+    private static Timer queryTimer(String query, MeterRegistry meterRegistry) {
+        return Timer.builder("analytics.query.duration")
+                .description("分析查询耗时")
+                .tag("query", query)
+                .register(meterRegistry);
+    }
+
+    public boolean hasDataset() {
+        return dataset != null;
+    }
+
+    /**
+     * 生成模拟数据集并替换当前数据集
+     *
+     * @throws IllegalArgumentException 记录数 / 用户数超过上限
+     * @throws IllegalStateException    已经有一次生成在进行
+     */
+    public Map<String, Object> generate(int records, int users, long seed) {
+        if (records < 1 || records > properties.getMaxRecords()) {
+            throw new IllegalArgumentException("records 必须在 1 ~ " + properties.getMaxRecords() + " 之间");
+        }
+        if (users < 1 || users > properties.getMaxUsers()) {
+            throw new IllegalArgumentException("users 必须在 1 ~ " + properties.getMaxUsers() + " 之间");
+        }
+        if (!generating.compareAndSet(false, true)) {
+            throw new IllegalStateException("已经有一次数据集生成在进行");
+        }
+        long elapsed;
+        try {
+            long start = System.nanoTime();
+            OrderDataset generated = OrderDataset.generate(records, users, seed, pool);
+            elapsed = System.nanoTime() - start;
+            generateTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            this.dataset = generated;
+            this.datasetSeed = seed;
+        } finally {
+            generating.set(false);
+        }
+        log.info("分析数据集已生成: records={}, users={}, 耗时 {} ms", records, users,
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+        Map<String, Object> result = describeDataset();
+        result.put("elapsedMs", toMillis(elapsed));
+        return result;
+    }
+
+    public Map<String, Object> describeDataset() {
+        OrderDataset current = requireDataset();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("records", current.size());
+        result.put("users", current.userCount());
+        result.put("seed", datasetSeed);
+        result.put("memoryMb", current.memoryBytes() / (1024 * 1024));
+        result.put("parallelism", pool.getParallelism());
+        return result;
+    }
+
+    /**
+     * 全部订单和按状态的 count / sum / min / max / avg
+     */
+    public Map<String, Object> summary() {
+        OrderDataset current = requireDataset();
+        long start = System.nanoTime();
+        OrderAggregator.Summary summary = aggregator.summarize(current);
+        long elapsed = System.nanoTime() - start;
+        summaryTimer.record(elapsed, TimeUnit.NANOSECONDS);
+
+        Map<String, Object> byStatus = new LinkedHashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status.name(), describe(summary.byStatus(status)));
+        }
+        Map<String, Object> result = timing(current, summary.getLeafSize(), elapsed);
+        result.put("total", describe(summary.total()));
+        result.put("byStatus", byStatus);
+        return result;
+    }
+
+    /**
+     * 按用户分组，返回金额合计最高的 limit 个用户
+     *
+     * @param status 只统计该状态的订单，null 表示全部
+     */
+    public Map<String, Object> topUsers(OrderStatus status, int limit) {
+        if (limit < 1 || limit > properties.getMaxTopUsers()) {
+            throw new IllegalArgumentException("limit 必须在 1 ~ " + properties.getMaxTopUsers() + " 之间");
+        }
+        OrderDataset current = requireDataset();
+        long start = System.nanoTime();
+        OrderAggregator.UserTotals totals = aggregator.totalsByUser(current, status);
+        List<OrderAggregator.UserTotal> top = totals.top(limit);
+        long elapsed = System.nanoTime() - start;
+        usersTimer.record(elapsed, TimeUnit.NANOSECONDS);
+
+        List<Map<String, Object>> users = new ArrayList<>(top.size());
+        for (OrderAggregator.UserTotal total : top) {
+            Map<String, Object> user = new LinkedHashMap<>();
+            user.put("userId", "user-" + total.userId());
+            user.put("orders", total.count());
+            user.put("amount", total.sum() / 100.0);
+            users.add(user);
+        }
+        Map<String, Object> result = timing(current, totals.getLeafSize(), elapsed);
+        result.put("status", status != null ? status.name() : "ALL");
+        result.put("activeUsers", totals.activeUsers());
+        result.put("top", users);
+        return result;
+    }
+
+    /**
+     * 在 1, 2, 4 ... maxParallelism 个线程的临时 ForkJoinPool 中分别跑按状态汇总，给出加速比
+     *
+     * @throws IllegalStateException 已经有一次扩展性测试在运行
+     */
+    public Map<String, Object> scaling(int maxParallelism) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        if (maxParallelism < 1 || maxParallelism > cpus * 2) {
+            throw new IllegalArgumentException("maxParallelism 必须在 1 ~ " + cpus * 2 + " 之间");
+        }
+        OrderDataset current = requireDataset();
+        if (!scalingRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("已经有一次扩展性测试在运行");
+        }
+        try {
+            List<Integer> levels = new ArrayList<>();
+            for (int p = 1; p < maxParallelism; p *= 2) {
+                levels.add(p);
+            }
+            levels.add(maxParallelism);
+
+            List<Map<String, Object>> runs = new ArrayList<>();
+            double baselineMs = 0;
+            for (int parallelism : levels) {
+                double bestMs = bestSummaryMillis(current, parallelism);
+                if (parallelism == 1) {
+                    baselineMs = bestMs;
+                }
+                double speedup = bestMs > 0 ? baselineMs / bestMs : 0;
+                Map<String, Object> run = new LinkedHashMap<>();
+                run.put("parallelism", parallelism);
+                run.put("elapsedMs", round(bestMs));
+                run.put("speedup", round(speedup));
+                run.put("efficiency", round(speedup / parallelism));
+                run.put("recordsPerSecond", bestMs > 0 ? (long) (current.size() / (bestMs / 1000)) : 0);
+                runs.add(run);
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("records", current.size());
+            result.put("availableProcessors", cpus);
+            result.put("roundsPerLevel", SCALING_ROUNDS);
+            result.put("runs", runs);
+            return result;
+        } finally {
+            scalingRunning.set(false);
+        }
+    }
+
+    private double bestSummaryMillis(OrderDataset current, int parallelism) {
+        ForkJoinPool scalingPool = new ForkJoinPool(parallelism);
+        try {
+            OrderAggregator scalingAggregator = new OrderAggregator(scalingPool);
+            // 第一轮预热：启动工作线程、触发 JIT
+            scalingAggregator.summarize(current);
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < SCALING_ROUNDS; i++) {
+                long start = System.nanoTime();
+                scalingAggregator.summarize(current);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            return best / 1_000_000.0;
+        } finally {
+            scalingPool.shutdown();
+        }
+    }
+
+    private OrderDataset requireDataset() {
+        OrderDataset current = dataset;
+        if (current == null) {
+            throw new IllegalStateException("还没有生成数据集，请先调用 POST /api/analytics/dataset");
+        }
+        return current;
+    }
+
+    private Map<String, Object> timing(OrderDataset current, int leafSize, long elapsedNanos) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("records", current.size());
+        result.put("parallelism", pool.getParallelism());
+        result.put("leafSize", leafSize);
+        result.put("elapsedMs", toMillis(elapsedNanos));
+        return result;
+    }
+
+    private static Map<String, Object> describe(OrderAggregator.Stats stats) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", stats.count());
+        result.put("sum", stats.sum() / 100.0);
+        result.put("min", stats.min() / 100.0);
+        result.put("max", stats.max() / 100.0);
+        result.put("avg", stats.count() == 0 ? 0 : round(stats.sum() / 100.0 / stats.count()));
+        return result;
+    }
+
+    private static double toMillis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
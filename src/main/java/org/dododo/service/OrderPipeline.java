@@ -0,0 +1,193 @@
+package org.dododo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.dododo.concurrent.BoundedWorkQueue;
+import org.dododo.config.BusinessProperties;
+import org.dododo.id.SnowflakeIdGenerator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步下单 -> 支付流水线
+ *
+ * <pre>
+ * 请求线程 --submit--> [order 队列] --order 工作线程: createOrder--> [payment 队列] --payment 工作线程: processPayment--> 完成
+ * </pre>
+ *
+ * <ul>
+ *   <li>请求线程只负责入队，立即返回 jobId（或 CompletableFuture），不再同步阻塞 150 ~ 450ms</li>
+ *   <li>每个阶段是一个 {@link BoundedWorkQueue}：独立的有界队列和工作线程，阶段指标见 work.queue.*{name=pipeline-order|pipeline-payment}</li>
+ *   <li>背压：order 队列满时直接拒绝请求；payment 队列满时 order 工作线程等待（最多 blockTimeout），
+ *       order 阶段随之变慢、队列堆积，最终在入口拒绝新请求</li>
+ * </ul>
+ *
+ * 端到端耗时记录在 pipeline.order.latency{result}。
+ */
+@Slf4j
+@Service
+public class OrderPipeline {
+
+    public enum Status {
+        QUEUED, CREATING_ORDER, PAYING, COMPLETED, FAILED
+    }
+
+    private final BusinessMetricsService businessMetricsService;
+    private final SnowflakeIdGenerator idGenerator;
+    private final BusinessProperties.Pipeline properties;
+    private final BoundedWorkQueue orderStage;
+    private final BoundedWorkQueue paymentStage;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Timer completedTimer;
+    private final Timer failedTimer;
+
+    public OrderPipeline(BusinessMetricsService businessMetricsService, SnowflakeIdGenerator idGenerator,
+                         BusinessProperties businessProperties, MeterRegistry meterRegistry) {
+        this.businessMetricsService = businessMetricsService;
+        this.idGenerator = idGenerator;
+        this.properties = businessProperties.getPipeline();
+        this.orderStage = stage("pipeline-order", properties.getOrder(), BoundedWorkQueue.Backpressure.REJECT, meterRegistry);
+        this.paymentStage = stage("pipeline-payment", properties.getPayment(), BoundedWorkQueue.Backpressure.BLOCK, meterRegistry);
+        this.completedTimer = latencyTimer("completed", meterRegistry);
+        this.failedTimer = latencyTimer("failed", meterRegistry);
+    }
+
+    private static BoundedWorkQueue stage(String name, BusinessProperties.Stage stage,
+                                          BoundedWorkQueue.Backpressure backpressure, MeterRegistry meterRegistry) {
+        return new BoundedWorkQueue(name, stage.getCapacity(), stage.getWorkers(), backpressure,
+                stage.getBlockTimeout(), meterRegistry);
+    }
+
+    private static Timer latencyTimer(String result, MeterRegistry meterRegistry) {
+        return Timer.builder("pipeline.order.latency")
+                .description("下单 -> 支付流水线端到端耗时")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 提交一个下单 + 支付任务，立即返回
+     *
+     * @throws RejectedExecutionException order 队列已满，或跟踪的任务数已达上限
+     */
+    public Job submit(String userId, double amount) {
+        if (jobs.size() >= properties.getMaxTrackedJobs()) {
+            purgeFinished();
+            if (jobs.size() >= properties.getMaxTrackedJobs()) {
+                throw new RejectedExecutionException("too many tracked pipeline jobs");
+            }
+        }
+        Job job = new Job(SnowflakeIdGenerator.encode("JOB_", idGenerator.nextId()), userId, amount);
+        jobs.put(job.getJobId(), job);
+        try {
+            orderStage.submit(() -> createOrder(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            throw e;
+        }
+        return job;
+    }
+
+    public Job getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private void createOrder(Job job) {
+        job.status = Status.CREATING_ORDER;
+        try {
+            job.orderId = businessMetricsService.createOrder(job.userId, job.amount);
+        } catch (RuntimeException e) {
+            fail(job, e.getMessage());
+            return;
+        }
+        job.status = Status.PAYING;
+        try {
+            // payment 队列满时在这里等待，背压传导到 order 阶段
+            paymentStage.submit(() -> pay(job));
+        } catch (RejectedExecutionException e) {
+            fail(job, "支付阶段繁忙: " + e.getMessage());
+        }
+    }
+
+    private void pay(Job job) {
+        try {
+            job.paymentSuccess = businessMetricsService.processPayment(job.orderId, job.amount);
+        } catch (RuntimeException e) {
+            fail(job, e.getMessage());
+            return;
+        }
+        if (job.paymentSuccess) {
+            finish(job, Status.COMPLETED, null, completedTimer);
+        } else {
+            fail(job, "支付失败");
+        }
+    }
+
+    private void fail(Job job, String error) {
+        finish(job, Status.FAILED, error, failedTimer);
+    }
+
+    private void finish(Job job, Status status, String error, Timer timer) {
+        job.error = error;
+        job.finishedAtNanos = System.nanoTime();
+        job.status = status;
+        timer.record(job.finishedAtNanos - job.submittedAtNanos, TimeUnit.NANOSECONDS);
+        job.future.complete(job);
+    }
+
+    /**
+     * 清理超过保留期的已结束任务
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeFinished() {
+        long cutoff = System.nanoTime() - properties.getRetention().toNanos();
+        jobs.values().removeIf(job -> job.future.isDone() && job.finishedAtNanos - cutoff < 0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        orderStage.shutdown();
+        paymentStage.shutdown();
+    }
+
+    /**
+     * 流水线中的一个任务，字段由各阶段的工作线程依次写入
+     */
+    @Getter
+    public static class Job {
+        private final String jobId;
+        private final String userId;
+        private final double amount;
+        private final long submittedAtNanos = System.nanoTime();
+        private final CompletableFuture<Job> future = new CompletableFuture<>();
+        private volatile Status status = Status.QUEUED;
+        private volatile String orderId;
+        private volatile boolean paymentSuccess;
+        private volatile String error;
+        private volatile long finishedAtNanos;
+
+        Job(String jobId, String userId, double amount) {
+            this.jobId = jobId;
+            this.userId = userId;
+            this.amount = amount;
+        }
+
+        /**
+         * 已结束的任务返回总耗时，否则返回到目前为止的耗时
+         */
+        public long getElapsedMillis() {
+            long end = future.isDone() ? finishedAtNanos : System.nanoTime();
+            return TimeUnit.NANOSECONDS.toMillis(end - submittedAtNanos);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.dododo.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模拟的支付网关连接：建立连接有握手开销，所以放在 {@link org.dododo.pool.ObjectPool} 中复用
+ */
+public class PaymentGatewayConnection {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final long id = SEQUENCE.incrementAndGet();
+    private volatile boolean open = true;
+
+    private PaymentGatewayConnection() {
+    }
+
+    /**
+     * 建立连接，模拟 20~50ms 的握手
+     */
+    public static PaymentGatewayConnection connect() throws InterruptedException {
+        Thread.sleep(ThreadLocalRandom.current().nextInt(30) + 20);
+        return new PaymentGatewayConnection();
+    }
+
+    /**
+     * 扣款：模拟 100~300ms 的处理时间和 90% 的成功率；约 0.5% 的请求结束后连接被网关断开
+     */
+    public boolean charge(String orderId, double amount) throws InterruptedException {
+        if (!open) {
+            throw new IllegalStateException(this + " is closed");
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Thread.sleep(random.nextInt(200) + 100);
+        boolean success = random.nextDouble() < 0.9;
+        if (random.nextDouble() < 0.005) {
+            open = false;
+        }
+        return success;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public void close() {
+        open = false;
+    }
+
+    @Override
+    public String toString() {
+        return "gateway-conn-" + id;
+    }
+}
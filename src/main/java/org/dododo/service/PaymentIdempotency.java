@@ -0,0 +1,122 @@
+package org.dododo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dododo.cache.RefreshAheadCache;
+import org.dododo.config.BusinessProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 支付接口的 Idempotency-Key 支持
+ *
+ * <ul>
+ *   <li>基于 {@link RefreshAheadCache}（refreshAfter = ttl，即不提前刷新）：有容量上限、按 ttl 过期，同一个 key 同时只执行一次</li>
+ *   <li><b>executed</b>：第一次出现的 key，真正调用 processPayment</li>
+ *   <li><b>deduplicated</b>：同一个 key 的请求还在处理中，等待它的结果（最多 waitTimeout）</li>
+ *   <li><b>replayed</b>：已完成的 key，直接返回缓存的结果，不再扣款、不再计入 business.payment.amount</li>
+ *   <li>执行抛异常（包括没有发起扣款的 {@link BusinessMetricsService.PaymentUnavailableException}）时不缓存，
+ *       客户端可以用同一个 key 重试；同一个 key 换了 orderId / amount 视为冲突</li>
+ * </ul>
+ *
+ * 指标：payment.idempotency.requests{result=executed|deduplicated|replayed|conflict}，以及 cache.*{cache=payment-idempotency}
+ */
+@Component
+public class PaymentIdempotency {
+
+    public enum Outcome {
+        EXECUTED, DEDUPLICATED, REPLAYED
+    }
+
+    public record PaymentResult(String orderId, double amount, boolean success) {
+    }
+
+    public record Result(PaymentResult payment, Outcome outcome) {
+    }
+
+    /**
+     * 同一个 Idempotency-Key 对应的请求参数不一致
+     */
+    public static class ConflictException extends RuntimeException {
+        public ConflictException(String message) {
+            super(message);
+        }
+    }
+
+    private final BusinessMetricsService businessMetricsService;
+    private final RefreshAheadCache<String, PaymentResult> results;
+    private final long waitTimeoutMillis;
+    private final int maxKeyLength;
+    private final Counter executedCounter;
+    private final Counter deduplicatedCounter;
+    private final Counter replayedCounter;
+    private final Counter conflictCounter;
+
+    public PaymentIdempotency(BusinessMetricsService businessMetricsService, BusinessProperties businessProperties,
+                              MeterRegistry meterRegistry) {
+        BusinessProperties.Idempotency properties = businessProperties.getIdempotency();
+        this.businessMetricsService = businessMetricsService;
+        this.results = new RefreshAheadCache<>("payment-idempotency", properties.getMaxKeys(),
+                properties.getTtl(), properties.getTtl(), meterRegistry);
+        this.waitTimeoutMillis = properties.getWaitTimeout().toMillis();
+        this.maxKeyLength = properties.getMaxKeyLength();
+        this.executedCounter = requestCounter(meterRegistry, "executed");
+        this.deduplicatedCounter = requestCounter(meterRegistry, "deduplicated");
+        this.replayedCounter = requestCounter(meterRegistry, "replayed");
+        this.conflictCounter = requestCounter(meterRegistry, "conflict");
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("payment.idempotency.requests")
+                .description("携带 Idempotency-Key 的支付请求")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws IllegalArgumentException key 为空或过长
+     * @throws ConflictException 同一个 key 的请求参数不同
+     * @throws TimeoutException  等待同 key 的进行中请求超时
+     * @throws BusinessMetricsService.PaymentUnavailableException 没有发起扣款（本次请求或合并等待的同 key 请求）
+     */
+    public Result processPayment(String idempotencyKey, String orderId, double amount)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > maxKeyLength) {
+            throw new IllegalArgumentException("Idempotency-Key 长度必须在 1 ~ " + maxKeyLength + " 之间");
+        }
+        AtomicBoolean executed = new AtomicBoolean(false);
+        CompletableFuture<PaymentResult> future = results.get(idempotencyKey, key -> {
+            executed.set(true);
+            // 在当前请求线程上同步执行；期间同 key 的其他请求等待这个 future
+            boolean success = businessMetricsService.processPayment(orderId, amount);
+            return CompletableFuture.completedFuture(new PaymentResult(orderId, amount, success));
+        });
+        Outcome outcome = executed.get() ? Outcome.EXECUTED
+                : future.isDone() ? Outcome.REPLAYED : Outcome.DEDUPLICATED;
+
+        PaymentResult payment;
+        try {
+            payment = future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BusinessMetricsService.PaymentUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw e;
+        }
+        if (!payment.orderId().equals(orderId) || Double.compare(payment.amount(), amount) != 0) {
+            conflictCounter.increment();
+            throw new ConflictException("Idempotency-Key 已用于另一笔支付: orderId=" + payment.orderId());
+        }
+        switch (outcome) {
+            case EXECUTED -> executedCounter.increment();
+            case DEDUPLICATED -> deduplicatedCounter.increment();
+            case REPLAYED -> replayedCounter.increment();
+        }
+        return new Result(payment, outcome);
+    }
+}
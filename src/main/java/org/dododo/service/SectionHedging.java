@@ -0,0 +1,47 @@
+package org.dododo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dododo.concurrent.Deadline;
+import org.dododo.concurrent.RequestHedger;
+import org.dododo.config.DashboardProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+/**
+ * 为配置的 dashboard section 加上对冲请求（app.dashboard.hedging）
+ */
+@Component
+public class SectionHedging {
+
+    private final Map<DashboardSection, RequestHedger> hedgers = new EnumMap<>(DashboardSection.class);
+
+    public SectionHedging(DashboardProperties properties, MeterRegistry meterRegistry) {
+        DashboardProperties.Hedging hedging = properties.getHedging();
+        if (!hedging.isEnabled()) {
+            return;
+        }
+        for (DashboardSection section : DashboardSection.values()) {
+            if (hedging.getSections().contains(section.getKey())) {
+                hedgers.put(section, new RequestHedger("dashboard." + section.getKey(),
+                        hedging.getPercentile(), hedging.getWindowSize(), hedging.getMinDelay(),
+                        hedging.getBudgetPercent(), meterRegistry));
+            }
+        }
+    }
+
+    /**
+     * section 启用了对冲时返回带对冲的 loader，否则原样返回
+     */
+    public BiFunction<String, Deadline, CompletableFuture<String>> wrap(
+            DashboardSection section, BiFunction<String, Deadline, CompletableFuture<String>> loader) {
+        RequestHedger hedger = hedgers.get(section);
+        if (hedger == null) {
+            return loader;
+        }
+        return (userId, deadline) -> hedger.call(deadline, attemptDeadline -> loader.apply(userId, attemptDeadline));
+    }
+}
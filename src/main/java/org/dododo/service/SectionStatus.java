@@ -0,0 +1,48 @@
+package org.dododo.service;
+
+import org.dododo.concurrent.DeadlineExceededException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Dashboard 单个 section 的完成状态
+ */
+public enum SectionStatus {
+    OK,
+    // deadline 之前没有完成（包括被取消）
+    TIMEOUT,
+    // 下游调用失败
+    FAILED,
+    // 舱壁执行器已满，任务没有提交（executor.rejected{name}）
+    REJECTED;
+
+    public static SectionStatus of(CompletableFuture<?> future) {
+        if (!future.isDone()) {
+            return TIMEOUT;
+        }
+        try {
+            future.join();
+            return OK;
+        } catch (CancellationException e) {
+            return TIMEOUT;
+        } catch (CompletionException e) {
+            if (hasCause(e, RejectedExecutionException.class)) {
+                return REJECTED;
+            }
+            return hasCause(e, DeadlineExceededException.class) ? TIMEOUT : FAILED;
+        }
+    }
+
+    private static boolean hasCause(Throwable e, Class<? extends Throwable> type) {
+        // @Async 会把异常包装多层 (CompletionException -> ExecutionException -> 原始异常)
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (type.isInstance(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
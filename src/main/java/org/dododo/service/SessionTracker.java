@@ -0,0 +1,100 @@
+package org.dododo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dododo.config.BusinessProperties;
+import org.dododo.metrics.SlidingWindowDistinctCounter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 活跃用户 / 去重用户统计
+ *
+ * <ul>
+ *   <li><b>活跃用户</b>：userId -> 最近活跃时间。重复登录只算一个，未登录用户的登出是空操作，计数不会变成负数；
+ *       超过 sessionTimeout 没有活动的会话由定时任务清理。会话数有上限，超出后新用户不再跟踪</li>
+ *   <li><b>去重用户</b>：最近 1 分钟 / 1 小时内有过活动的不同用户数，用滑动窗口 HyperLogLog 估算，内存固定，与用户数无关</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class SessionTracker {
+
+    private final BusinessProperties.Sessions properties;
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+    // 1 分钟窗口按 10 秒滚动，1 小时窗口按 1 分钟滚动
+    private final SlidingWindowDistinctCounter distinctPerMinute;
+    private final SlidingWindowDistinctCounter distinctPerHour;
+
+    public SessionTracker(BusinessProperties businessProperties) {
+        this.properties = businessProperties.getSessions();
+        int precision = properties.getHllPrecision();
+        this.distinctPerMinute = new SlidingWindowDistinctCounter(Duration.ofMinutes(1), 6, precision);
+        this.distinctPerHour = new SlidingWindowDistinctCounter(Duration.ofHours(1), 60, precision);
+    }
+
+    /**
+     * 登录：开始或刷新会话
+     *
+     * @return 是否为新会话（false 表示重复登录或会话数已达上限）
+     */
+    public boolean login(String userId) {
+        recordActivity(userId);
+        long now = System.nanoTime();
+        if (lastSeen.size() >= properties.getMaxSessions() && !lastSeen.containsKey(userId)) {
+            return false;
+        }
+        return lastSeen.put(userId, now) == null;
+    }
+
+    /**
+     * 登出：结束会话
+     *
+     * @return 会话是否存在
+     */
+    public boolean logout(String userId) {
+        return lastSeen.remove(userId) != null;
+    }
+
+    /**
+     * 其他业务活动：刷新已有会话的活跃时间，并计入去重用户
+     */
+    public void touch(String userId) {
+        recordActivity(userId);
+        lastSeen.computeIfPresent(userId, (k, v) -> System.nanoTime());
+    }
+
+    private void recordActivity(String userId) {
+        distinctPerMinute.add(userId);
+        distinctPerHour.add(userId);
+    }
+
+    public int activeUsers() {
+        return lastSeen.size();
+    }
+
+    public long distinctUsersLastMinute() {
+        return distinctPerMinute.estimate();
+    }
+
+    public long distinctUsersLastHour() {
+        return distinctPerHour.estimate();
+    }
+
+    /**
+     * 清理超时的会话
+     */
+    @Scheduled(fixedDelayString = "${app.business.sessions.sweep-interval-ms:10000}")
+    public void expireIdleSessions() {
+        long cutoff = System.nanoTime() - properties.getTimeout().toNanos();
+        int before = lastSeen.size();
+        lastSeen.values().removeIf(seen -> seen - cutoff < 0);
+        int expired = before - lastSeen.size();
+        if (expired > 0) {
+            log.debug("清理超时会话 {} 个，当前活跃用户数: {}", expired, lastSeen.size());
+        }
+    }
+}
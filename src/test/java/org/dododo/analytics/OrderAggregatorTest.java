@@ -0,0 +1,157 @@
+package org.dododo.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderAggregatorTest {
+
+    // 4 个线程时按状态汇总的叶子是 200_000 / 16 = 12_500 条，按用户分组（100 个用户）同样如此，两种聚合都会拆分
+    private static final int RECORDS = 200_000;
+    private static final int USERS = 100;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final OrderAggregator aggregator = new OrderAggregator(pool);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void summaryMatchesSequentialScan() {
+        OrderDataset dataset = OrderDataset.generate(RECORDS, USERS, 7, pool);
+        OrderAggregator.Summary summary = aggregator.summarize(dataset);
+        assertTrue(summary.getLeafSize() < RECORDS, "summary did not split");
+
+        long totalCount = 0;
+        long totalSum = 0;
+        for (OrderStatus status : OrderStatus.values()) {
+            OrderAggregator.Stats expected = sequentialStats(dataset, status);
+            assertEquals(expected, summary.byStatus(status), status.name());
+            totalCount += expected.count();
+            totalSum += expected.sum();
+        }
+        OrderAggregator.Stats total = summary.total();
+        assertEquals(totalCount, total.count());
+        assertEquals(totalSum, total.sum());
+        assertEquals(Arrays.stream(dataset.amounts).min().orElseThrow(), total.min());
+        assertEquals(Arrays.stream(dataset.amounts).max().orElseThrow(), total.max());
+    }
+
+    @Test
+    void statusWithoutRecordsIsAllZero() {
+        SplittableRandom random = new SplittableRandom(3);
+        int[] userIds = new int[RECORDS];
+        byte[] statuses = new byte[RECORDS];
+        long[] amounts = new long[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            userIds[i] = random.nextInt(USERS);
+            // 不生成 REFUNDED
+            statuses[i] = (byte) random.nextInt(OrderStatus.REFUNDED.ordinal());
+            amounts[i] = 100 + random.nextInt(10_000);
+        }
+        OrderDataset dataset = new OrderDataset(userIds, statuses, amounts, USERS);
+
+        OrderAggregator.Summary summary = aggregator.summarize(dataset);
+        assertEquals(new OrderAggregator.Stats(0, 0, 0, 0), summary.byStatus(OrderStatus.REFUNDED));
+        for (OrderStatus status : List.of(OrderStatus.CREATED, OrderStatus.PAID, OrderStatus.FAILED)) {
+            assertEquals(sequentialStats(dataset, status), summary.byStatus(status), status.name());
+        }
+
+        OrderAggregator.UserTotals refunded = aggregator.totalsByUser(dataset, OrderStatus.REFUNDED);
+        assertEquals(0, refunded.activeUsers());
+        assertEquals(List.of(), refunded.top(10));
+    }
+
+    @Test
+    void userTotalsMatchSequentialScan() {
+        OrderDataset dataset = OrderDataset.generate(RECORDS, USERS, 11, pool);
+        assertUserTotals(dataset, null);
+        for (OrderStatus status : OrderStatus.values()) {
+            assertUserTotals(dataset, status);
+        }
+    }
+
+    @Test
+    void topIsOrderedByAmountDescending() {
+        OrderDataset dataset = OrderDataset.generate(RECORDS, USERS, 13, pool);
+        OrderAggregator.UserTotals totals = aggregator.totalsByUser(dataset, OrderStatus.PAID);
+        long[][] expected = sequentialTotals(dataset, OrderStatus.PAID);
+        long[] sortedSums = Arrays.stream(expected[1]).sorted().toArray();
+
+        for (int limit : new int[]{1, 10, USERS, USERS * 2}) {
+            List<OrderAggregator.UserTotal> top = totals.top(limit);
+            assertEquals(Math.min(limit, totals.activeUsers()), top.size(), "limit " + limit);
+            for (int i = 0; i < top.size(); i++) {
+                OrderAggregator.UserTotal user = top.get(i);
+                assertEquals(sortedSums[sortedSums.length - 1 - i], user.sum(), "rank " + i);
+                assertEquals(expected[0][user.userId()], user.count());
+            }
+        }
+    }
+
+    @Test
+    void groupedLeavesGrowWithUserCount() {
+        // 记录数 / 用户数较大时仍按核数拆分
+        assertEquals(OrderAggregator.leafSize(20_000_000, 16), OrderAggregator.groupedLeafSize(20_000_000, 1000, 16));
+        // 用户数很多时叶子不小于 GROUPED_LEAF_FACTOR × 用户数，分组数组合计与核数无关
+        int leaf = OrderAggregator.groupedLeafSize(20_000_000, 1_000_000, 64);
+        assertEquals(OrderAggregator.GROUPED_LEAF_FACTOR * 1_000_000, leaf);
+    }
+
+    private void assertUserTotals(OrderDataset dataset, OrderStatus status) {
+        OrderAggregator.UserTotals totals = aggregator.totalsByUser(dataset, status);
+        assertTrue(totals.getLeafSize() < RECORDS, "user totals did not split");
+        long[][] expected = sequentialTotals(dataset, status);
+        int active = 0;
+        for (int u = 0; u < USERS; u++) {
+            OrderAggregator.UserTotal user = totals.get(u);
+            assertEquals(expected[0][u], user.count(), "count of user " + u + " for " + status);
+            assertEquals(expected[1][u], user.sum(), "sum of user " + u + " for " + status);
+            if (expected[0][u] > 0) {
+                active++;
+            }
+        }
+        assertEquals(active, totals.activeUsers());
+    }
+
+    private static OrderAggregator.Stats sequentialStats(OrderDataset dataset, OrderStatus status) {
+        long count = 0;
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < dataset.size(); i++) {
+            if (dataset.statuses[i] == status.code()) {
+                long amount = dataset.amounts[i];
+                count++;
+                sum += amount;
+                min = Math.min(min, amount);
+                max = Math.max(max, amount);
+            }
+        }
+        return count == 0 ? new OrderAggregator.Stats(0, 0, 0, 0) : new OrderAggregator.Stats(count, sum, min, max);
+    }
+
+    /**
+     * [0] 每个用户的订单数，[1] 每个用户的金额合计
+     */
+    private static long[][] sequentialTotals(OrderDataset dataset, OrderStatus status) {
+        long[] counts = new long[dataset.userCount()];
+        long[] sums = new long[dataset.userCount()];
+        for (int i = 0; i < dataset.size(); i++) {
+            if (status == null || dataset.statuses[i] == status.code()) {
+                counts[dataset.userIds[i]]++;
+                sums[dataset.userIds[i]] += dataset.amounts[i];
+            }
+        }
+        return new long[][]{counts, sums};
+    }
+}
@@ -0,0 +1,63 @@
+package org.dododo.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedWorkQueueTest {
+
+    private BoundedWorkQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void parkedConsumersAreWokenBySubmit() throws Exception {
+        queue = new BoundedWorkQueue("test", 16, 2, BoundedWorkQueue.Backpressure.REJECT,
+                Duration.ofSeconds(1), new SimpleMeterRegistry());
+        // 等消费者退避结束、进入无超时的 park
+        awaitConsumersParked();
+
+        for (int round = 0; round < 100; round++) {
+            CountDownLatch done = new CountDownLatch(1);
+            queue.submit(done::countDown);
+            assertTrue(done.await(1, TimeUnit.SECONDS), "task not picked up in round " + round);
+        }
+    }
+
+    @Test
+    void idleConsumersDoNotBurnCpu() throws Exception {
+        queue = new BoundedWorkQueue("test", 16, 2, BoundedWorkQueue.Backpressure.REJECT,
+                Duration.ofSeconds(1), new SimpleMeterRegistry());
+        awaitConsumersParked();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("test-consumer-")) {
+                assertEquals(Thread.State.WAITING, thread.getState(), thread.getName());
+            }
+        }
+    }
+
+    private static void awaitConsumersParked() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            long waiting = Thread.getAllStackTraces().keySet().stream()
+                    .filter(t -> t.getName().startsWith("test-consumer-") && t.getState() == Thread.State.WAITING)
+                    .count();
+            if (waiting == 2) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.dododo.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpmcRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(2, new MpmcRingBuffer<Integer>(2).capacity());
+        assertEquals(8, new MpmcRingBuffer<Integer>(5).capacity());
+        assertEquals(8, new MpmcRingBuffer<Integer>(8).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new MpmcRingBuffer<Integer>(1));
+        assertThrows(NullPointerException.class, () -> new MpmcRingBuffer<Integer>(2).offer(null));
+    }
+
+    @Test
+    void fullAndEmpty() {
+        MpmcRingBuffer<Integer> buffer = new MpmcRingBuffer<>(4);
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4), "offer must fail when full");
+        assertEquals(4, buffer.size());
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertNull(buffer.poll(), "poll must return null when empty");
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void wrapsAroundManyTimesInFifoOrder() {
+        MpmcRingBuffer<Integer> buffer = new MpmcRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        // 每轮写 3 个读 2 个，读写位置在环上错开前进，覆盖各种相对位置
+        for (int round = 0; round < 10_000; round++) {
+            while (buffer.offer(next)) {
+                next++;
+            }
+            assertEquals(4, buffer.size());
+            for (int i = 0; i < 2 + round % 3; i++) {
+                assertEquals(expected++, buffer.poll());
+            }
+        }
+        Integer value;
+        while ((value = buffer.poll()) != null) {
+            assertEquals(expected++, value);
+        }
+        assertEquals(next, expected);
+    }
+
+    @Test
+    void concurrentProducersAndConsumersLoseAndDuplicateNothing() throws Exception {
+        MpmcRingBuffer<Integer> buffer = new MpmcRingBuffer<>(1024);
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 200_000;
+        int total = producers * perProducer;
+        AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        AtomicInteger consumed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(base + i)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int c = 0; c < consumers; c++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // 同一个生产者的元素必须按入队顺序出队
+                    int[] lastByProducer = new int[producers];
+                    Arrays.fill(lastByProducer, -1);
+                    while (consumed.get() < total) {
+                        Integer value = buffer.poll();
+                        if (value == null) {
+                            Thread.onSpinWait();
+                            continue;
+                        }
+                        consumed.incrementAndGet();
+                        assertEquals(0, seen.getAndIncrement(value), "duplicate: " + value);
+                        int producer = value / perProducer;
+                        assertTrue(value > lastByProducer[producer], "out of order: " + value);
+                        lastByProducer[producer] = value;
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(total, consumed.get());
+        for (int i = 0; i < total; i++) {
+            assertEquals(1, seen.get(i), "lost: " + i);
+        }
+        assertNull(buffer.poll());
+    }
+}
@@ -0,0 +1,161 @@
+package org.dododo.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH + 1_000_000;
+
+    @Test
+    void idsAreMonotonicAndCarryNodeAndTimestamp() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, 10);
+        long before = System.currentTimeMillis();
+        long previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous, "not monotonic: " + previous + " -> " + id);
+            previous = id;
+        }
+        assertEquals(7, SnowflakeIdGenerator.nodeIdOf(previous));
+        assertTrue(SnowflakeIdGenerator.timestampOf(previous) >= before);
+        assertTrue(SnowflakeIdGenerator.timestampOf(previous) <= System.currentTimeMillis());
+    }
+
+    @Test
+    void sequenceExhaustionWaitsForNextMillisecond() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 10, clock::get);
+        long last = 0;
+        for (int i = 0; i < 4096; i++) {
+            last = generator.nextId();
+        }
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(last));
+
+        Thread ticker = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            clock.incrementAndGet();
+        });
+        ticker.start();
+        long next = generator.nextId();
+        assertTrue(next > last);
+        assertEquals(NOW + 1, SnowflakeIdGenerator.timestampOf(next));
+    }
+
+    @Test
+    void concurrentGenerationHasNoDuplicates() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 10);
+        int threads = 16;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long[] ids = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            long[] all = new long[threads * perThread];
+            int offset = 0;
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+                for (int i = 1; i < ids.length; i++) {
+                    assertTrue(ids[i] > ids[i - 1], "not monotonic within a thread");
+                }
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertTrue(all[i] != all[i - 1], "duplicate id: " + all[i]);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void clockRollbackWithinToleranceKeepsIssuingFromLastTimestamp() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 10, clock::get);
+        long before = generator.nextId();
+
+        clock.set(NOW - 10);
+        long after = generator.nextId();
+        assertTrue(after > before);
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(after));
+
+        // 时钟追上之后回到真实时间戳
+        clock.set(NOW + 1);
+        assertEquals(NOW + 1, SnowflakeIdGenerator.timestampOf(generator.nextId()));
+    }
+
+    @Test
+    void clockRollbackBeyondToleranceFails() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 10, clock::get);
+        long before = generator.nextId();
+
+        clock.set(NOW - 11);
+        IllegalStateException e = assertThrows(IllegalStateException.class, generator::nextId);
+        assertTrue(e.getMessage().startsWith("Clock moved backwards by 11ms"), e.getMessage());
+
+        // 时钟恢复后继续发号，不会与回拨前的 ID 重复
+        clock.set(NOW);
+        assertTrue(generator.nextId() > before);
+    }
+
+    @Test
+    void base62RoundTripPreservesValueAndOrder() {
+        long[] values = {0, 1, 61, 62, 3843, 3844, 1L << 40, SnowflakeIdGenerator.EPOCH, Long.MAX_VALUE - 1, Long.MAX_VALUE};
+        String previous = null;
+        for (long value : values) {
+            String encoded = SnowflakeIdGenerator.encode(value);
+            assertEquals(SnowflakeIdGenerator.ENCODED_LENGTH, encoded.length());
+            assertEquals(value, SnowflakeIdGenerator.decode(encoded));
+            if (previous != null) {
+                assertTrue(previous.compareTo(encoded) < 0, "order differs: " + previous + " / " + encoded);
+            }
+            previous = encoded;
+        }
+        assertEquals("ORDER_" + SnowflakeIdGenerator.encode(42), SnowflakeIdGenerator.encode("ORDER_", 42));
+
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 10);
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertEquals(id, SnowflakeIdGenerator.decode(SnowflakeIdGenerator.encode(id)));
+        }
+    }
+
+    @Test
+    void invalidInputIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeIdGenerator.encode(-1));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeIdGenerator.decode("abc"));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeIdGenerator.decode("0000000000-"));
+    }
+}
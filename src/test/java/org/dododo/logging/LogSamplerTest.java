@@ -0,0 +1,64 @@
+package org.dododo.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogSamplerTest {
+
+    private final Counter suppressed = Counter.builder("logging.sampled.suppressed")
+            .tag("site", "test")
+            .register(new SimpleMeterRegistry());
+
+    @Test
+    void allowsAtMostMaxPerSecondAndCountsTheRest() {
+        LogSampler sampler = new LogSampler(5, suppressed);
+        awaitNextSecond();
+
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (sampler.tryAcquire()) {
+                allowed++;
+            }
+        }
+        assertEquals(5, allowed);
+        assertEquals(15, suppressed.count());
+    }
+
+    @Test
+    void budgetResetsInTheNextSecond() {
+        LogSampler sampler = new LogSampler(3, suppressed);
+        awaitNextSecond();
+        for (int i = 0; i < 10; i++) {
+            sampler.tryAcquire();
+        }
+
+        awaitNextSecond();
+        assertTrue(sampler.tryAcquire());
+        assertTrue(sampler.tryAcquire());
+        assertTrue(sampler.tryAcquire());
+        assertEquals(7, suppressed.count());
+    }
+
+    @Test
+    void nonPositiveLimitDisablesSampling() {
+        LogSampler sampler = new LogSampler(0, suppressed);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(sampler.tryAcquire());
+        }
+        assertEquals(0, suppressed.count());
+    }
+
+    /**
+     * 等到下一秒刚开始，让随后的几次调用落在同一秒内
+     */
+    private static void awaitNextSecond() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        while (System.nanoTime() / 1_000_000_000L == second) {
+            Thread.onSpinWait();
+        }
+    }
+}
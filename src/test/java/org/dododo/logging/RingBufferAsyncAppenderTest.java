@@ -0,0 +1,168 @@
+package org.dododo.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.status.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("test");
+    private final BlockingListAppender child = new BlockingListAppender();
+    private final RingBufferAsyncAppender appender = new RingBufferAsyncAppender();
+
+    @BeforeEach
+    void setUp() {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        child.setContext(context);
+        child.setName("list");
+        child.start();
+        appender.setContext(context);
+        appender.setName("test");
+        appender.addAppender(child);
+    }
+
+    @AfterEach
+    void tearDown() {
+        child.release.countDown();
+        appender.stop();
+    }
+
+    @Test
+    void queuedEventsAreFlushedOnStop() {
+        appender.setCapacity(64);
+        appender.start();
+        child.release.countDown();
+        for (int i = 0; i < 50; i++) {
+            appender.doAppend(event(Level.INFO, "event-" + i));
+        }
+        appender.stop();
+
+        assertEquals(50, child.list.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("event-" + i, child.list.get(i).getMessage());
+        }
+    }
+
+    @Test
+    void infoIsDiscardedBelowThresholdAndEverythingIsDroppedWhenFull() throws InterruptedException {
+        // 容量 8，剩余容量低于 4 时丢弃 INFO
+        appender.setCapacity(8);
+        appender.setDiscardThreshold(0.5);
+        appender.start();
+        long discardedBefore = RingBufferAsyncAppender.DISCARDED.sum();
+        long droppedBefore = RingBufferAsyncAppender.DROPPED.sum();
+
+        // 后台线程取走第一条后卡在下游 appender 里，队列只进不出
+        appender.doAppend(event(Level.INFO, "first"));
+        assertTrue(child.entered.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 8; i++) {
+            appender.doAppend(event(Level.INFO, "info-" + i));
+        }
+        assertEquals(3, RingBufferAsyncAppender.DISCARDED.sum() - discardedBefore);
+
+        for (int i = 0; i < 4; i++) {
+            appender.doAppend(event(Level.WARN, "warn-" + i));
+        }
+        assertEquals(3, RingBufferAsyncAppender.DISCARDED.sum() - discardedBefore);
+        assertEquals(1, RingBufferAsyncAppender.DROPPED.sum() - droppedBefore);
+
+        child.release.countDown();
+        appender.stop();
+        List<String> messages = child.list.stream().map(ILoggingEvent::getMessage).toList();
+        assertEquals(List.of("first", "info-0", "info-1", "info-2", "info-3", "info-4",
+                "warn-0", "warn-1", "warn-2"), messages);
+    }
+
+    @Test
+    void stopWarnsWhenMaxFlushTimeIsExceeded() throws InterruptedException {
+        appender.setCapacity(8);
+        appender.setMaxFlushTime(100);
+        appender.start();
+        appender.doAppend(event(Level.INFO, "stuck"));
+        appender.doAppend(event(Level.INFO, "queued"));
+        assertTrue(child.entered.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        appender.stop();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertFalse(appender.isStarted());
+        assertTrue(elapsedMs < 5_000, "stop took " + elapsedMs + "ms");
+        assertTrue(context.getStatusManager().getCopyOfStatusList().stream()
+                        .anyMatch(s -> s.getLevel() == Status.WARN && s.getMessage().startsWith("Max flush time (100ms) exceeded")),
+                "no max flush time warning");
+    }
+
+    @Test
+    void idleWorkerParksAndIsWokenByAppend() throws InterruptedException {
+        appender.start();
+        child.release.countDown();
+        Thread worker = awaitWorkerWaiting();
+
+        for (int round = 0; round < 100; round++) {
+            appender.doAppend(event(Level.INFO, "event-" + round));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (child.list.size() <= round && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertEquals(round + 1, child.list.size(), "event not written in round " + round);
+        }
+        awaitWorkerWaiting();
+        assertEquals(Thread.State.WAITING, worker.getState());
+    }
+
+    private static Thread awaitWorkerWaiting() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals("async-log-test") && thread.getState() == Thread.State.WAITING) {
+                    return thread;
+                }
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("worker did not park");
+    }
+
+    private ILoggingEvent event(Level level, String message) {
+        return new LoggingEvent(RingBufferAsyncAppenderTest.class.getName(), logger, level, message, null, null);
+    }
+
+    /**
+     * 第一次 append 时阻塞，直到 release 被放行
+     */
+    private static final class BlockingListAppender extends ListAppender<ILoggingEvent> {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.append(event);
+        }
+    }
+}
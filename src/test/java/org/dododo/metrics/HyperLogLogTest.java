@@ -0,0 +1,123 @@
+package org.dododo.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    private static final int PRECISION = 12;
+    // 标准误差 1.04 / sqrt(2^12) ≈ 1.6%
+    private static final double THREE_SIGMA = 3 * 1.04 / Math.sqrt(1 << PRECISION);
+
+    @Test
+    void estimatesAreWithinThreeSigma() {
+        for (int cardinality : new int[]{1_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog(PRECISION);
+            for (int i = 0; i < cardinality; i++) {
+                sketch.add("user-" + i);
+            }
+            assertWithinThreeSigma(cardinality, sketch.estimate());
+        }
+    }
+
+    @Test
+    void duplicatesDoNotChangeTheEstimate() {
+        HyperLogLog once = new HyperLogLog(PRECISION);
+        HyperLogLog repeated = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 10_000; i++) {
+            once.add("user-" + i);
+            for (int r = 0; r < 5; r++) {
+                repeated.add("user-" + i);
+            }
+        }
+        assertEquals(once.estimate(), repeated.estimate());
+        assertArrayEquals(registers(once), registers(repeated));
+    }
+
+    @Test
+    void mergeEqualsUnion() {
+        HyperLogLog a = new HyperLogLog(PRECISION);
+        HyperLogLog b = new HyperLogLog(PRECISION);
+        HyperLogLog union = new HyperLogLog(PRECISION);
+        // 两个集合有 20 万重叠
+        for (int i = 0; i < 600_000; i++) {
+            a.add("user-" + i);
+            union.add("user-" + i);
+        }
+        for (int i = 400_000; i < 1_000_000; i++) {
+            b.add("user-" + i);
+            union.add("user-" + i);
+        }
+
+        byte[] merged = new byte[a.registerCount()];
+        a.mergeInto(merged);
+        b.mergeInto(merged);
+        assertArrayEquals(registers(union), merged);
+        assertEquals(union.estimate(), HyperLogLog.estimate(merged));
+        assertWithinThreeSigma(1_000_000, HyperLogLog.estimate(merged));
+    }
+
+    @Test
+    void concurrentAddsMatchSequentialAdds() throws Exception {
+        HyperLogLog sequential = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 200_000; i++) {
+            sequential.add("user-" + i);
+        }
+
+        HyperLogLog concurrent = new HyperLogLog(PRECISION);
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < 200_000; i += threads) {
+                        concurrent.add("user-" + i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // 寄存器只增不减，CAS 不会丢失更大的值
+        assertArrayEquals(registers(sequential), registers(concurrent));
+    }
+
+    @Test
+    void emptyAndReset() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        assertEquals(0, sketch.estimate());
+        sketch.add("a");
+        assertEquals(1, sketch.estimate());
+        sketch.reset();
+        assertEquals(0, sketch.estimate());
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(19));
+    }
+
+    private static byte[] registers(HyperLogLog sketch) {
+        byte[] copy = new byte[sketch.registerCount()];
+        sketch.mergeInto(copy);
+        return copy;
+    }
+
+    private static void assertWithinThreeSigma(long expected, long estimate) {
+        double error = Math.abs(estimate - expected) / (double) expected;
+        assertTrue(error <= THREE_SIGMA,
+                "cardinality=" + expected + " estimate=" + estimate + " error=" + error + " > " + THREE_SIGMA);
+    }
+}
@@ -0,0 +1,152 @@
+package org.dododo.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class LatencyHistogramTest {
+
+    private static final double MAX_RELATIVE_ERROR = 0.01;
+    private static final double[] QUANTILES = {0.01, 0.1, 0.5, 0.9, 0.99, 0.999, 1.0};
+
+    @Test
+    void bucketValueIsWithinOnePercentOfEveryRecordedValue() {
+        // 覆盖精确区间、128 / 256 边界和之后的若干个 2 的幂区间
+        for (long value = 0; value < 1 << 16; value++) {
+            assertBucketAccurate(value);
+        }
+        long max = TimeUnit.MINUTES.toMicros(10);
+        for (long value = 1 << 16; value <= max; value = value * 17 / 16 + 1) {
+            assertBucketAccurate(value - 1);
+            assertBucketAccurate(value);
+            assertBucketAccurate(value + 1);
+        }
+    }
+
+    @Test
+    void indexIsContinuousAcrossBucketBoundaries() {
+        assertEquals(127, LatencyHistogram.indexOf(127));
+        assertEquals(128, LatencyHistogram.indexOf(128));
+        assertEquals(255, LatencyHistogram.indexOf(255));
+        assertEquals(256, LatencyHistogram.indexOf(256));
+        // 256 之后每个桶宽 2
+        assertEquals(256, LatencyHistogram.indexOf(257));
+        assertEquals(257, LatencyHistogram.indexOf(258));
+
+        int previous = LatencyHistogram.indexOf(0);
+        for (long value = 1; value < 1 << 20; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            if (index != previous && index != previous + 1) {
+                fail("index jumps from " + previous + " to " + index + " at " + value);
+            }
+            previous = index;
+        }
+    }
+
+    @Test
+    void exactValuesBelowAndAtTheFirstBoundaries() {
+        for (long value : new long[]{0, 1, 127, 128, 255}) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            assertEquals(value, histogram.snapshot().valueAtQuantile(0.5));
+        }
+    }
+
+    @Test
+    void quantilesAreWithinOnePercentAcrossMagnitudes() {
+        Random random = new Random(42);
+        // 每个分布覆盖一个数量级：1µs ~ 10µs、10µs ~ 100µs ... 10s ~ 100s
+        for (long low = 1; low <= 10_000_000; low *= 10) {
+            long[] values = new long[20_000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = low + (long) (random.nextDouble() * low * 9);
+            }
+            assertQuantiles(values);
+        }
+    }
+
+    @Test
+    void quantilesAreWithinOnePercentForLogUniformValues() {
+        Random random = new Random(7);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // 1µs ~ 100s 对数均匀
+            values[i] = (long) Math.pow(10, random.nextDouble() * 8);
+        }
+        assertQuantiles(values);
+    }
+
+    @Test
+    void valuesAroundTheFirstBoundariesKeepTheirQuantiles() {
+        long[] values = new long[4_000];
+        for (int i = 0; i < values.length; i++) {
+            // 集中在 120 ~ 270：128 起进入对数区间（桶宽仍为 1），256 起桶宽变为 2
+            values[i] = 120 + i % 151;
+        }
+        assertQuantiles(values);
+    }
+
+    @Test
+    void valuesAboveHighestTrackableKeepTheRealMax() {
+        LatencyHistogram histogram = new LatencyHistogram(1_000);
+        histogram.record(10);
+        histogram.record(5_000_000);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(5_000_000, snapshot.getMaxMicros());
+        assertEquals(2, snapshot.getCount());
+        long p100 = snapshot.valueAtQuantile(1.0);
+        assertTrue(p100 >= 990 && p100 <= 1_010, "clamped to the last bucket: " + p100);
+        assertEquals(10, snapshot.valueAtQuantile(0.5));
+    }
+
+    @Test
+    void addAndReset() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            a.record(i);
+            b.record(i * 1000L);
+        }
+        a.add(b);
+        LatencyHistogram.Snapshot snapshot = a.snapshot();
+        assertEquals(200, snapshot.getCount());
+        assertEquals(100_000, snapshot.getMaxMicros());
+        assertEquals((5050 + 5_050_000) / 200.0, snapshot.getMeanMicros(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> a.add(new LatencyHistogram(1_000)));
+
+        a.reset();
+        assertEquals(0, a.getCount());
+        assertEquals(0, a.snapshot().valueAtQuantile(0.99));
+    }
+
+    private static void assertBucketAccurate(long value) {
+        long bucketValue = LatencyHistogram.valueOf(LatencyHistogram.indexOf(value));
+        if (Math.abs(bucketValue - value) > value * MAX_RELATIVE_ERROR) {
+            fail(value + " is reported as " + bucketValue);
+        }
+    }
+
+    private static void assertQuantiles(long[] values) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value : values) {
+            histogram.record(value);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double quantile : QUANTILES) {
+            long exact = sorted[(int) Math.max(0, Math.ceil(quantile * sorted.length) - 1)];
+            long estimate = snapshot.valueAtQuantile(quantile);
+            double error = Math.abs(estimate - exact) / (double) Math.max(1, exact);
+            assertTrue(error < MAX_RELATIVE_ERROR,
+                    "q=" + quantile + " exact=" + exact + " estimate=" + estimate + " error=" + error);
+        }
+    }
+}
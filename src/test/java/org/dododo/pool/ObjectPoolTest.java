@@ -0,0 +1,264 @@
+package org.dododo.pool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class ObjectPoolTest {
+
+    private final TestFactory factory = new TestFactory();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private ObjectPool<TestObject> pool;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ObjectPool<TestObject> newPool(int maxSize, Duration borrowTimeout) {
+        pool = new ObjectPool<>("test", factory, 0, maxSize, borrowTimeout, Duration.ofHours(1), Duration.ofHours(1),
+                Duration.ofHours(1), new SimpleMeterRegistry());
+        return pool;
+    }
+
+    @Test
+    void returnedObjectIsReused() throws Exception {
+        ObjectPool<TestObject> pool = newPool(2, Duration.ofSeconds(1));
+        TestObject first;
+        try (ObjectPool.Lease<TestObject> lease = pool.borrow()) {
+            first = lease.get();
+        }
+        try (ObjectPool.Lease<TestObject> lease = pool.borrow()) {
+            assertSame(first, lease.get());
+        }
+        assertEquals(1, factory.created.get());
+        assertEquals(0, pool.getActive());
+        assertEquals(1, pool.getIdle());
+    }
+
+    @Test
+    void borrowTimesOutWhenExhausted() throws Exception {
+        ObjectPool<TestObject> pool = newPool(1, Duration.ofMillis(100));
+        ObjectPool.Lease<TestObject> held = pool.borrow();
+        try {
+            long start = System.nanoTime();
+            assertThrows(PoolTimeoutException.class, pool::borrow);
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+
+            assertThrows(PoolTimeoutException.class, () -> pool.borrow(Duration.ZERO));
+            assertEquals(0, pool.getWaiters());
+        } finally {
+            held.close();
+        }
+        assertEquals(1, factory.created.get());
+    }
+
+    @Test
+    void returnedObjectIsHandedToWaiter() throws Exception {
+        ObjectPool<TestObject> pool = newPool(1, Duration.ofSeconds(5));
+        ObjectPool.Lease<TestObject> held = pool.borrow();
+        TestObject object = held.get();
+
+        Future<TestObject> waiter = executor.submit(() -> {
+            try (ObjectPool.Lease<TestObject> lease = pool.borrow()) {
+                return lease.get();
+            }
+        });
+        awaitWaiters(pool, 1);
+        held.close();
+
+        assertSame(object, waiter.get(1, TimeUnit.SECONDS));
+        assertEquals(1, factory.created.get());
+        assertEquals(0, pool.getWaiters());
+    }
+
+    @Test
+    void invalidatedObjectIsDestroyedAndReplaced() throws Exception {
+        ObjectPool<TestObject> pool = newPool(1, Duration.ofSeconds(5));
+        ObjectPool.Lease<TestObject> lease = pool.borrow();
+        TestObject broken = lease.get();
+        lease.invalidate();
+        // 失效后不能再使用，重复 close 不会把它放回池中
+        assertThrows(IllegalStateException.class, lease::get);
+        lease.close();
+
+        assertTrue(broken.destroyed);
+        assertEquals(0, pool.getIdle());
+        try (ObjectPool.Lease<TestObject> next = pool.borrow()) {
+            assertNotSame(broken, next.get());
+        }
+        assertEquals(2, factory.created.get());
+    }
+
+    @Test
+    void invalidatingFreesCapacityForWaiter() throws Exception {
+        ObjectPool<TestObject> pool = newPool(1, Duration.ofSeconds(5));
+        ObjectPool.Lease<TestObject> held = pool.borrow();
+        TestObject broken = held.get();
+
+        Future<TestObject> waiter = executor.submit(() -> {
+            try (ObjectPool.Lease<TestObject> lease = pool.borrow()) {
+                return lease.get();
+            }
+        });
+        awaitWaiters(pool, 1);
+        held.invalidate();
+
+        TestObject replacement = waiter.get(1, TimeUnit.SECONDS);
+        assertNotSame(broken, replacement);
+        assertTrue(broken.destroyed);
+    }
+
+    @Test
+    void closeDestroysIdleObjectsNowAndBorrowedOnesOnReturn() throws Exception {
+        ObjectPool<TestObject> pool = newPool(2, Duration.ofSeconds(1));
+        ObjectPool.Lease<TestObject> borrowed = pool.borrow();
+        ObjectPool.Lease<TestObject> returned = pool.borrow();
+        TestObject idle = returned.get();
+        returned.close();
+
+        pool.close();
+        assertTrue(idle.destroyed);
+        assertFalse(borrowed.get().destroyed, "borrowed object must stay usable until it is returned");
+        assertEquals(1, pool.getActive());
+        assertThrows(IllegalStateException.class, pool::borrow);
+
+        TestObject object = borrowed.get();
+        borrowed.close();
+        assertTrue(object.destroyed);
+        assertEquals(0, pool.getActive());
+        assertEquals(0, pool.getIdle());
+    }
+
+    @Test
+    void slowCreateDoesNotStallReturningThreads() throws Exception {
+        ObjectPool<TestObject> pool = newPool(2, Duration.ofSeconds(5));
+        ObjectPool.Lease<TestObject> held = pool.borrow();
+
+        // 第二个借用线程在 factory.create 里卡住：它还没有阻塞在移交队列上，不算等待者
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        factory.beforeCreate = () -> {
+            creating.countDown();
+            release.await();
+        };
+        Future<TestObject> slowBorrower = executor.submit(() -> {
+            try (ObjectPool.Lease<TestObject> lease = pool.borrow()) {
+                return lease.get();
+            }
+        });
+        assertTrue(creating.await(1, TimeUnit.SECONDS));
+        assertEquals(0, pool.getWaiters());
+
+        // 归还不应该陪着空转到创建结束
+        CompletableFuture<Void> returning = CompletableFuture.runAsync(held::close, executor);
+        returning.get(1, TimeUnit.SECONDS);
+
+        release.countDown();
+        slowBorrower.get(1, TimeUnit.SECONDS);
+        factory.beforeCreate = null;
+    }
+
+    @Test
+    void concurrentBorrowersNeverShareAnObject() throws Exception {
+        int maxSize = 4;
+        ObjectPool<TestObject> pool = newPool(maxSize, Duration.ofSeconds(10));
+        Set<TestObject> inUse = ConcurrentHashMap.newKeySet();
+        AtomicInteger maxInUse = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    try (ObjectPool.Lease<TestObject> lease = pool.borrow()) {
+                        if (!inUse.add(lease.get())) {
+                            fail("object borrowed twice: " + lease.get());
+                        }
+                        maxInUse.accumulateAndGet(inUse.size(), Math::max);
+                        Thread.yield();
+                        inUse.remove(lease.get());
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        assertTrue(maxInUse.get() <= maxSize);
+        assertTrue(factory.created.get() <= maxSize);
+        assertEquals(0, pool.getActive());
+        assertEquals(0, pool.getWaiters());
+    }
+
+    private static void awaitWaiters(ObjectPool<?> pool, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pool.getWaiters() < expected) {
+            if (System.nanoTime() > deadline) {
+                fail("expected " + expected + " waiter(s), got " + pool.getWaiters());
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static final class TestObject {
+        private final int id;
+        private volatile boolean destroyed;
+
+        private TestObject(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return "obj-" + id;
+        }
+    }
+
+    private static final class TestFactory implements PooledObjectFactory<TestObject> {
+        private final AtomicInteger created = new AtomicInteger();
+        private volatile Interruptible beforeCreate;
+
+        @Override
+        public TestObject create() throws Exception {
+            Interruptible hook = beforeCreate;
+            if (hook != null) {
+                hook.run();
+            }
+            return new TestObject(created.incrementAndGet());
+        }
+
+        @Override
+        public void destroy(TestObject object) {
+            object.destroyed = true;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Interruptible {
+        void run() throws InterruptedException;
+    }
+}
@@ -0,0 +1,186 @@
+package org.dododo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.dododo.config.MetricsProperties;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class BulkEventIngestionServiceTest {
+
+    // 与 LineReader 的缓冲区大小一致
+    private static final int BUFFER = 8192;
+    private static final String EVENT = "{\"type\":\"click\",\"status\":\"ok\"}";
+
+    @Test
+    void linesStraddlingTheBufferBoundaryAreJoined() throws IOException {
+        String first = "a".repeat(BUFFER - 3);
+        String second = "b".repeat(10);
+        List<String> lines = readAll(first + "\n" + second + "\n" + "tail", BUFFER * 2);
+        assertEquals(List.of(first, second, "tail"), lines);
+    }
+
+    @Test
+    void crlfIsStrippedEvenWhenCrEndsAChunk() throws IOException {
+        // '\r' 是第一块的最后一个字符，'\n' 在下一次 read 中
+        String first = "x".repeat(BUFFER - 1);
+        List<String> lines = readAll(first + "\r\nsecond\r\n", BUFFER * 2);
+        assertEquals(List.of(first, "second"), lines);
+    }
+
+    @Test
+    void crlfIsStrippedWithOneCharPerRead() throws IOException {
+        BulkEventIngestionService.LineReader reader =
+                new BulkEventIngestionService.LineReader(new OneCharReader("ab\r\ncd\r\n"), 16);
+        assertEquals("ab", reader.readLine());
+        assertEquals("cd", reader.readLine());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    void lineOfExactlyMaxLengthIsKeptEvenWithCarriageReturn() throws IOException {
+        BulkEventIngestionService.LineReader reader =
+                new BulkEventIngestionService.LineReader(new StringReader("abcd\r\nabcde\n"), 4);
+        assertEquals("abcd", reader.readLine());
+        assertFalse(reader.isTooLong());
+        assertEquals("", reader.readLine());
+        assertTrue(reader.isTooLong());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    void overLongLineIsSkippedAndTheNextLineIsRead() throws IOException {
+        String longLine = "z".repeat(BUFFER * 3);
+        BulkEventIngestionService.LineReader reader =
+                new BulkEventIngestionService.LineReader(new StringReader(longLine + "\nok\n"), 100);
+        assertEquals("", reader.readLine());
+        assertTrue(reader.isTooLong());
+        assertEquals("ok", reader.readLine());
+        assertFalse(reader.isTooLong());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    void lastLineWithoutNewlineIsReturned() throws IOException {
+        assertEquals(List.of("one", "two"), readAll("one\ntwo", 100));
+        assertEquals(List.of(), readAll("", 100));
+    }
+
+    @Test
+    void exactlyMaxLinesIsNotTruncated() throws IOException {
+        BusinessMetricsService metrics = mock(BusinessMetricsService.class);
+        BulkEventIngestionService service = service(metrics, 3, 10);
+
+        BulkEventIngestionService.IngestResult result = service.ingest(body(EVENT + "\n" + EVENT + "\n" + EVENT + "\n"));
+
+        assertEquals(3, result.getAccepted());
+        assertFalse(result.isTruncated());
+        verify(metrics).recordCustomEvents("click", "ok", 3);
+    }
+
+    @Test
+    void linesBeyondMaxLinesAreNotRead() throws IOException {
+        BusinessMetricsService metrics = mock(BusinessMetricsService.class);
+        BulkEventIngestionService service = service(metrics, 3, 10);
+
+        BulkEventIngestionService.IngestResult result = service.ingest(body((EVENT + "\n").repeat(5)));
+
+        assertEquals(3, result.getAccepted());
+        assertTrue(result.isTruncated());
+    }
+
+    @Test
+    void blankLinesCountTowardMaxLines() throws IOException {
+        BusinessMetricsService metrics = mock(BusinessMetricsService.class);
+        BulkEventIngestionService service = service(metrics, 3, 10);
+
+        BulkEventIngestionService.IngestResult result = service.ingest(body("\n\n  \n" + EVENT + "\n"));
+
+        assertEquals(0, result.getAccepted());
+        assertTrue(result.isTruncated());
+        verify(metrics, never()).recordCustomEvents(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void readingStopsOnceMaxErrorsIsReached() throws IOException {
+        BusinessMetricsService metrics = mock(BusinessMetricsService.class);
+        BulkEventIngestionService service = service(metrics, 100, 2);
+
+        BulkEventIngestionService.IngestResult result =
+                service.ingest(body(EVENT + "\nnot json\n{}\n" + EVENT + "\n"));
+
+        assertEquals(1, result.getAccepted());
+        assertEquals(2, result.getRejected());
+        assertTrue(result.isTruncated());
+        // 2 条错误明细 + 1 条截断原因
+        assertEquals(3, result.getErrors().size());
+        verify(metrics).recordCustomEvents(eq("click"), eq("ok"), eq(1L));
+    }
+
+    private static BulkEventIngestionService service(BusinessMetricsService metrics, int maxLines, int maxErrors) {
+        MetricsProperties properties = new MetricsProperties();
+        properties.getBulk().setMaxLines(maxLines);
+        properties.getBulk().setMaxErrors(maxErrors);
+        return new BulkEventIngestionService(metrics, new ObjectMapper(), properties);
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> readAll(String text, int maxLength) throws IOException {
+        BulkEventIngestionService.LineReader reader =
+                new BulkEventIngestionService.LineReader(new StringReader(text), maxLength);
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            assertFalse(reader.isTooLong(), line);
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * 每次 read 只返回一个字符，让 '\r' 和 '\n' 落在不同的块里
+     */
+    private static final class OneCharReader extends Reader {
+
+        private final String text;
+        private int position;
+
+        OneCharReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length()) {
+                return -1;
+            }
+            buffer[offset] = text.charAt(position++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}